@@ -0,0 +1,42 @@
+package io.ileukocyte.dsa.bdd.benchmarks;
+
+import io.ileukocyte.dsa.bdd.BinaryDecisionDiagram;
+import io.ileukocyte.dsa.bdd.Tests;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CreationBenchmark {
+    @Param({ "13", "16", "20", "23", "26" })
+    public int variables;
+
+    @Param({ "15", "60" })
+    public int clauses;
+
+    @Param({ "42" })
+    public long seed;
+
+    private String function;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        function = Tests.generateDnfExpression(variables, clauses, seed);
+    }
+
+    @Benchmark
+    public BinaryDecisionDiagram create() {
+        return BinaryDecisionDiagram.create(function);
+    }
+
+    @Benchmark
+    public BinaryDecisionDiagram createWithBestOrder() {
+        return BinaryDecisionDiagram.createWithBestOrder(function);
+    }
+}
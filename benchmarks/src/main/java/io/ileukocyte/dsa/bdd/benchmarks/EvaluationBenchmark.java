@@ -0,0 +1,111 @@
+package io.ileukocyte.dsa.bdd.benchmarks;
+
+import io.ileukocyte.dsa.bdd.BinaryDecisionDiagram;
+import io.ileukocyte.dsa.bdd.BranchProgram;
+import io.ileukocyte.dsa.bdd.Tests;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class EvaluationBenchmark {
+    // the number of assignments evaluated per invocation
+    private static final int INPUTS = 1024;
+
+    @Param({ "13", "16", "20", "23", "26" })
+    public int variables;
+
+    @Param({ "15", "60" })
+    public int clauses;
+
+    @Param({ "42" })
+    public long seed;
+
+    private BinaryDecisionDiagram bdd;
+    private BranchProgram program;
+    private LongPredicate compiled;
+
+    private String[] textInputs;
+    private long[] inputs;
+    private boolean[] results;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        bdd = BinaryDecisionDiagram.createWithBestOrder(Tests.generateDnfExpression(variables, clauses, seed));
+        program = bdd.toBranchProgram();
+        compiled = program.compile();
+
+        var random = new Random(seed);
+
+        textInputs = new String[INPUTS];
+        inputs = new long[INPUTS];
+        results = new boolean[INPUTS];
+
+        for (int i = 0; i < INPUTS; i++) {
+            inputs[i] = random.nextLong() & ((1L << variables) - 1);
+
+            var text = new StringBuilder();
+
+            for (int level = 0; level < variables; level++) {
+                text.append(inputs[i] >>> level & 1);
+            }
+
+            textInputs[i] = text.toString();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void useString(Blackhole blackhole) {
+        for (var input : textInputs) {
+            blackhole.consume(bdd.use(input));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void useLong(Blackhole blackhole) {
+        for (var input : inputs) {
+            blackhole.consume(bdd.use(input));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public boolean[] useBatch() {
+        bdd.use(inputs, results);
+
+        return results;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void branchProgram(Blackhole blackhole) {
+        for (var input : inputs) {
+            blackhole.consume(program.test(input));
+        }
+    }
+
+    // falls back to the branch program for the diagrams too large to compile
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void compiled(Blackhole blackhole) {
+        for (var input : inputs) {
+            blackhole.consume(compiled.test(input));
+        }
+    }
+
+    @Benchmark
+    public int size() {
+        return bdd.size();
+    }
+}
@@ -1,62 +1,314 @@
 package io.ileukocyte.dsa.bdd;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class BinaryDecisionDiagram {
-    // calculated dynamically once right after the BDD is created
-    private int computedSize = -1;
+    // the most clauses getFunction() renders for a diagram that was not created from a DNF
+    public static final int MAX_FUNCTION_PATHS = 1 << 16;
 
+    // the primitive node store holding only the reachable nodes
+    private NodeTable table;
+    private int rootId;
+
+    // the linked representation is only materialized on demand
     private Node root;
     private final Node falseLeaf;
     private final Node trueLeaf;
 
-    private final String function;
-    private final String order;
+    // derived lazily from the diagram for the results of Boolean operations
+    private String function;
+
+    // the variable names by level, which change whenever the variables are reordered
+    private String[] variables;
+
+    // the function is rendered from the same simplified cubes the diagram is built from
+    private BinaryDecisionDiagram(long[] cubes, String order) {
+        this(letters(order));
 
-    // used for I-reduction
-    private final Map<String, Map<String, Node>> map;
+        this.function = Node.format(cubes, order);
+    }
 
-    private BinaryDecisionDiagram(String function, String order, Map<String, Map<String, Node>> map) {
-        root = new Node(Node.format(function));
+    private BinaryDecisionDiagram(String[] variables) {
         falseLeaf = new Node("0");
         trueLeaf = new Node("1");
 
-        this.function = root.getFunctionDnf();
-        this.order = order;
-        this.map = map;
+        this.variables = variables;
     }
 
     public Node getRoot() {
+        if (root == null) {
+            root = toNode();
+        }
+
         return root;
     }
 
+    // the concatenated variables, which is only defined if every variable is a single character
     public String getOrder() {
-        return order;
+        var order = new StringBuilder(variables.length);
+
+        for (var variable : variables) {
+            if (variable.length() != 1) {
+                throw new IllegalStateException("The order of named variables is only available as a list!");
+            }
+
+            order.append(variable);
+        }
+
+        return order.toString();
     }
 
+    public List<String> getVariables() {
+        return List.of(variables);
+    }
+
+    public int getVariableCount() {
+        return variables.length;
+    }
+
+    // the DNF the diagram was created from, or one clause per path to the TRUE leaf for the results of the operations
+    // (e.g., and() or restrict()), whose number of paths can be exponential in the size of the diagram, so the paths
+    // are only enumerated up to MAX_FUNCTION_PATHS of them (satCubes() streams any number of them instead)
     public String getFunction() {
+        if (function == null) {
+            var paths = pathCount();
+
+            if (paths > MAX_FUNCTION_PATHS) {
+                throw new IllegalStateException("The diagram has more than " + MAX_FUNCTION_PATHS
+                        + " paths to the TRUE leaf, so its function is not rendered! Use satCubes() instead!");
+            }
+
+            function = isNamed() ? toExpression() : toDnf();
+        }
+
         return function;
     }
 
     public int size() {
-        if (computedSize == -1) {
-            var nodes = new HashSet<Node>();
+        // the table only holds the reachable nodes and both leaves, which are only unreachable from a constant root
+        return NodeTable.isLeaf(rootId) ? 1 : table.count();
+    }
 
-            fillNodeSet(nodes, root);
+    // the number of nodes testing the variable at the given position of the order
+    public int levelSize(int level) {
+        return table.levelCount(level);
+    }
 
-            computedSize = nodes.size();
+    public int[] getLevelSizes() {
+        var sizes = new int[variables.length];
+
+        for (int level = 0; level < sizes.length; level++) {
+            sizes[level] = table.levelCount(level);
         }
 
-        return computedSize;
+        return sizes;
+    }
+
+    NodeTable getTable() {
+        return table;
+    }
+
+    int getRootId() {
+        return rootId;
+    }
+
+    // the heap size of the primitive node store
+    public long memoryFootprint() {
+        return table.memoryFootprint();
     }
 
     public boolean isTautology() {
-        return root.equals(trueLeaf) && size() == 1;
+        return rootId == NodeTable.TRUE;
+    }
+
+    // the listeners receive the metrics of every construction, operation and reordering,
+    // which are also emitted as flight recorder events (io.ileukocyte.dsa.bdd.Operation and io.ileukocyte.dsa.bdd.Phase)
+    public static void addListener(DiagramListener listener) {
+        OperationRecorder.addListener(listener);
+    }
+
+    public static void removeListener(DiagramListener listener) {
+        OperationRecorder.removeListener(listener);
     }
 
     public static BinaryDecisionDiagram create(String function, String order) {
+        return create(function, order, Integer.MAX_VALUE);
+    }
+
+    // the variables are sifted whenever the construction table grows past the threshold,
+    // so the resulting order may differ from the provided one
+    public static BinaryDecisionDiagram create(String function, String order, int reorderThreshold) {
+        return create(function, order, reorderThreshold, new ComputedCache());
+    }
+
+    // the provided cache memoizes apply(OR) during the construction and keeps its counters afterwards
+    public static BinaryDecisionDiagram create(String function, String order, int reorderThreshold, ComputedCache cache) {
+        validate(function, order);
+
+        var recorder = OperationRecorder.start("create", "build");
+        var cubes = Cubes.simplify(Cubes.parse(function, order));
+        var bdd = new BinaryDecisionDiagram(cubes, order);
+
+        recorder.track(cache);
+
+        bdd.build(cubes, reorderThreshold, cache, recorder);
+
+        return bdd;
+    }
+
+    public static BinaryDecisionDiagram create(String function) {
+        var sortedOrder = String.join("", Node.getDnfVariablesOrdered(function, true, true));
+
+        return create(function, sortedOrder);
+    }
+
+    // a diagram that only creates the nodes the evaluations reach (see LazyDiagram)
+    public static LazyDiagram createLazy(String function, String order) {
+        validate(function, order);
+
+        return new LazyDiagram(Cubes.simplify(Cubes.parse(function, order)), order);
+    }
+
+    public static LazyDiagram createLazy(String function) {
+        return createLazy(function, String.join("", Node.getDnfVariablesOrdered(function, true, true)));
+    }
+
+    public static BinaryDecisionDiagram createWithBestOrder(String function) {
+        return createWithBestOrder(function, ForkJoinPool.commonPool());
+    }
+
+    public static BinaryDecisionDiagram createWithBestOrder(String function, ExecutorService executor) {
+        if (function.isEmpty()) {
+            throw new IllegalArgumentException("The provided function must not be empty!");
+        }
+
+        var variables = String.join("", Node.getDnfVariablesOrdered(function, true, true));
+
+        validate(function, variables);
+
+        var recorder = OperationRecorder.start("createWithBestOrder", "search");
+
+        // parsed once, since every rotation of the order only rotates the masks
+        var cubes = Cubes.simplify(Cubes.parse(function, variables));
+
+        // the size of the smallest diagram built so far, which the other candidates must not exceed
+        // (it is only checked once a candidate is complete, since the intermediate results of apply(OR)
+        // can be larger than the final diagram, but a losing candidate is never compacted or kept)
+        var best = new AtomicInteger(Integer.MAX_VALUE);
+        var winner = new AtomicReference<Candidate>();
+
+        var tasks = new ArrayList<Future<?>>();
+
+        // linear method (e.g., ABC, BCA, CAB)
+        for (int i = 0; i < variables.length(); i++) {
+            var index = i;
+            var order = variables.substring(i) + variables.substring(0, i);
+
+            tasks.add(executor.submit(() -> {
+                // the same construction as create(), every clause being built as a cube and OR-ed into the result
+                var rotated = Cubes.rotate(cubes, index, order.length());
+                var builder = new NodeTable(order.length());
+                var root = NodeTable.FALSE;
+
+                for (int c = 0; c < rotated.length; c += 2) {
+                    root = builder.or(root, builder.cube(rotated[c], rotated[c + 1]));
+                }
+
+                var size = builder.countReachable(root);
+
+                if (size > best.get()) {
+                    return;
+                }
+
+                var candidate = new Candidate(index, order, builder, root, size);
+
+                best.accumulateAndGet(candidate.size(), Math::min);
+                winner.accumulateAndGet(candidate, (current, other) -> current == null || other.isBetterThan(current) ? other : current);
+            }));
+        }
+
+        for (var task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new IllegalStateException("The best order search has been interrupted!", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("The best order search has failed!", e.getCause());
+            }
+        }
+
+        var candidate = winner.get();
+        var bdd = new BinaryDecisionDiagram(Cubes.rotate(cubes, candidate.index(), variables.length()), candidate.order());
+
+        // only the winner is reported, since the other candidates are dropped as soon as they turn out larger
+        recorder.phase("compact");
+
+        bdd.store(candidate.table(), candidate.root());
+
+        recorder.finish(candidate.table(), bdd);
+
+        return bdd;
+    }
+
+    public void save(Path path) throws IOException {
+        MappedDiagram.write(this, path);
+    }
+
+    public static BinaryDecisionDiagram load(Path path) throws IOException {
+        return MappedDiagram.open(path).toDiagram();
+    }
+
+    // a general Boolean expression over named variables (e.g., "(x[1] | !valid) & (a ^ b)"),
+    // ordered by their first occurrence
+    public static BinaryDecisionDiagram parse(String expression) {
+        return ExpressionParser.parse(expression);
+    }
+
+    public static BinaryDecisionDiagram parse(String expression, List<String> order) {
+        return ExpressionParser.parse(expression, order);
+    }
+
+    // the provided cache memoizes the operations of the parsing (e.g., one shared with a DiagramManager)
+    public static BinaryDecisionDiagram parse(String expression, List<String> order, ComputedCache cache) {
+        return ExpressionParser.parse(expression, order, cache);
+    }
+
+    // a CNF in the DIMACS format, where the variable n is named x[n]
+    public static BinaryDecisionDiagram parseDimacs(Reader input) throws IOException {
+        return ExpressionParser.parseDimacs(input);
+    }
+
+    // a standalone diagram holding a copy of the subgraph of a node from another store
+    static BinaryDecisionDiagram of(String order, NodeStore store, int root) {
+        return of(List.of(letters(order)), store, root);
+    }
+
+    static BinaryDecisionDiagram of(List<String> variables, NodeStore store, int root) {
+        var table = new NodeTable(variables.size());
+        var bdd = new BinaryDecisionDiagram(variables.toArray(String[]::new));
+
+        bdd.store(table, table.importNode(store, root));
+
+        return bdd;
+    }
+
+    private static void validate(String function, String order) {
         if (function.isEmpty() || order.isEmpty()) {
             throw new IllegalArgumentException("Neither the function nor the order can be empty!");
         }
@@ -71,180 +323,649 @@ public class BinaryDecisionDiagram {
         if (!function.matches("[!A-Z+\\s]+")) {
             throw new IllegalArgumentException("The provided format is not correct! DNF (e.g., ABC + A!B!C) should be used instead!");
         }
+    }
 
-        var map = new TreeMap<String, Map<String, Node>>();
+    public boolean use(String input) {
+        if (input.length() != variables.length) {
+            throw new IllegalArgumentException("The input does not match the required format!");
+        }
 
-        for (var variable : functionVariables.toCharArray()) {
-            // creating an individual map for each variable
-            map.put(String.valueOf(variable), new HashMap<>());
+        for (int i = 0; i < input.length(); i++) {
+            if (input.charAt(i) != '0' && input.charAt(i) != '1') {
+                throw new IllegalArgumentException("The input does not match the required format!");
+            }
         }
 
-        var bdd = new BinaryDecisionDiagram(function, order, map);
+        var node = rootId;
 
-        bdd.parse(bdd.getRoot(), bdd.getOrder());
-        bdd.size();
+        // the reduced variables are skipped since no node tests them
+        while (!NodeTable.isLeaf(node)) {
+            node = input.charAt(table.level(node)) == '0' ? table.low(node) : table.high(node);
+        }
 
-        return bdd;
+        return node == NodeTable.TRUE;
     }
 
-    public static BinaryDecisionDiagram create(String function) {
-        var sortedOrder = String.join("", Node.getDnfVariablesOrdered(function, true, true));
+    // bit i of the input holds the value of the i-th variable of the order
+    public boolean use(long input) {
+        if (variables.length > Long.SIZE) {
+            throw new IllegalStateException("A long input can only hold up to 64 variables!");
+        }
 
-        return create(function, sortedOrder);
+        return evaluate(input);
     }
 
-    public static BinaryDecisionDiagram createWithBestOrder(String function) {
-        if (function.isEmpty()) {
-            throw new IllegalArgumentException("The provided function must not be empty!");
+    // bit i of the input holds the value of the i-th variable of the order
+    public boolean use(BitSet input) {
+        var node = rootId;
+
+        while (!NodeTable.isLeaf(node)) {
+            node = input.get(table.level(node)) ? table.high(node) : table.low(node);
         }
 
-        var variables = String.join("", Node.getDnfVariablesOrdered(function, true, true));
-        var temp = variables;
+        return node == NodeTable.TRUE;
+    }
 
-        var orders = new HashSet<String>();
+    // the value of every variable by its name
+    public boolean use(Map<String, Boolean> input) {
+        var values = new BitSet(variables.length);
 
-        // linear method (e.g., ABC, BCA, CAB)
-        do {
-            orders.add(temp);
+        for (int level = 0; level < variables.length; level++) {
+            var value = input.get(variables[level]);
 
-            temp = temp + temp.charAt(0);
-            temp = temp.substring(1);
-        } while (!temp.equals(variables));
+            if (value == null) {
+                throw new IllegalArgumentException("The input is missing the variable " + variables[level] + "!");
+            }
 
-        // checking which order generates the least nodes
-        var bdds = orders.stream()
-                .map(o -> create(function, o))
-                .sorted(Comparator.comparing(BinaryDecisionDiagram::size))
-                .toList();
+            values.set(level, value);
+        }
 
-        return bdds.get(0);
+        return use(values);
     }
 
-    public boolean use(String input) {
-        if (!input.matches("[01]+") || input.length() != order.length()) {
-            throw new IllegalArgumentException("The input does not match the required format!");
+    public boolean[] use(long[] inputs) {
+        var results = new boolean[inputs.length];
+
+        use(inputs, results);
+
+        return results;
+    }
+
+    public void use(long[] inputs, boolean[] results) {
+        if (variables.length > Long.SIZE) {
+            throw new IllegalStateException("A long input can only hold up to 64 variables!");
+        }
+
+        if (results.length < inputs.length) {
+            throw new IllegalArgumentException("The result array is shorter than the input array!");
         }
 
-        return use(input, root);
+        for (int i = 0; i < inputs.length; i++) {
+            results[i] = evaluate(inputs[i]);
+        }
     }
 
-    private boolean use(String input, Node root) {
-        if (root.getLeft() == null && root.getRight() == null) {
-            // just in case a leaf node contains something else than "0" or "1"
-            // should never occur
-            if (!root.getFunction().equals(falseLeaf.getFunction()) && !root.getFunction().equals(trueLeaf.getFunction())) {
-                throw new IllegalStateException("Unexpected value: " + root.getFunction());
-            }
+    // bit i of the result is set if the i-th input satisfies the function
+    public void use(long[] inputs, BitSet results) {
+        if (variables.length > Long.SIZE) {
+            throw new IllegalStateException("A long input can only hold up to 64 variables!");
+        }
 
-            return root.getFunction().equals(trueLeaf.getFunction());
-        } else {
-            var data = root.getFunctionDnf();
+        for (int i = 0; i < inputs.length; i++) {
+            results.set(i, evaluate(inputs[i]));
+        }
+    }
 
-            // checking whether the current variable has been reduced
-            if (!data.contains(String.valueOf(order.charAt(order.length() - input.length())))) {
-                return use(input.substring(1), root);
-            }
+    private boolean evaluate(long input) {
+        var node = rootId;
+
+        while (!NodeTable.isLeaf(node)) {
+            node = (input >>> table.level(node) & 1) == 0 ? table.low(node) : table.high(node);
+        }
 
-            return use(input.substring(1), input.charAt(0) == '0' ? root.getLeft() : root.getRight());
+        return node == NodeTable.TRUE;
+    }
+
+    // the number of satisfying assignments of all the variables, counted bottom-up in one pass over the compact table
+    public BigInteger satCount() {
+        var counts = new BigInteger[table.count()];
+
+        counts[NodeTable.FALSE] = BigInteger.ZERO;
+        counts[NodeTable.TRUE] = BigInteger.ONE;
+
+        // every variable skipped between a node and its child doubles the count of the child
+        for (int id = 2; id < counts.length; id++) {
+            var level = table.level(id);
+            var low = counts[table.low(id)].shiftLeft(table.level(table.low(id)) - level - 1);
+            var high = counts[table.high(id)].shiftLeft(table.level(table.high(id)) - level - 1);
+
+            counts[id] = low.add(high);
         }
+
+        return counts[rootId].shiftLeft(table.level(rootId));
     }
 
-    private void parse(Node root, String order) {
-        if (order.isEmpty()) {
-            return;
+    // the values of the variables along one path to the TRUE leaf (the omitted variables can take any value)
+    public Optional<Map<String, Boolean>> anySat() {
+        if (rootId == NodeTable.FALSE) {
+            return Optional.empty();
         }
 
-        var function = root.getFunction();
+        var cube = new LinkedHashMap<String, Boolean>();
+
+        // since the diagram is reduced, every non-FALSE node leads to the TRUE leaf
+        for (var node = rootId; node != NodeTable.TRUE; ) {
+            var high = table.high(node) != NodeTable.FALSE;
+
+            cube.put(variables[table.level(node)], high);
+            node = high ? table.high(node) : table.low(node);
+        }
+
+        return Optional.of(cube);
+    }
+
+    // the disjoint cubes of all the paths to the TRUE leaf, which are only enumerated as they are requested
+    public Iterator<Map<String, Boolean>> satCubeIterator() {
+        return new CubeIterator();
+    }
+
+    public Stream<Map<String, Boolean>> satCubes() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(satCubeIterator(), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // a flat level-ordered copy for hot evaluation, which can also be compiled into bytecode
+    public BranchProgram toBranchProgram() {
+        return new BranchProgram(this);
+    }
+
+    // the family of the satisfying assignments, each as the set of its true variables
+    public ZeroSuppressedDiagram toZeroSuppressed() {
+        return ZeroSuppressedDiagram.of(this);
+    }
+
+    public BinaryDecisionDiagram and(BinaryDecisionDiagram other) {
+        return apply("and", this, other, NodeTable::and);
+    }
+
+    public BinaryDecisionDiagram or(BinaryDecisionDiagram other) {
+        return apply("or", this, other, NodeTable::or);
+    }
+
+    public BinaryDecisionDiagram xor(BinaryDecisionDiagram other) {
+        return apply("xor", this, other, NodeTable::xor);
+    }
 
-        var left = function.replace(order.charAt(0), '0').replace(Character.toLowerCase(order.charAt(0)), '1');
-        var right = function.replace(order.charAt(0), '1').replace(Character.toLowerCase(order.charAt(0)), '0');
+    public BinaryDecisionDiagram not() {
+        var recorder = OperationRecorder.start("not", "import");
+        var table = new NodeTable(variables.length);
+        var f = table.importNode(this.table, rootId);
 
-        left = Node.parseDigits(left);
-        right = Node.parseDigits(right);
+        recorder.phase("apply");
 
-        // I-reduction map
-        var mapLevel = map.get(String.valueOf(order.charAt(0)));
+        var node = table.not(f);
 
-        var containsLeft = mapLevel.containsKey(left);
-        var leftNode = mapLevel.getOrDefault(left, left.equals("0") ? falseLeaf : left.equals("1") ? trueLeaf : new Node(left));
+        return finish(recorder, table, node);
+    }
+
+    // if this then thenBranch else elseBranch
+    public BinaryDecisionDiagram ite(BinaryDecisionDiagram thenBranch, BinaryDecisionDiagram elseBranch) {
+        requireSameOrder(thenBranch);
+        requireSameOrder(elseBranch);
 
-        leftNode.addParent(root);
-        root.setLeft(leftNode);
+        // all the operands are copied into a common unique table, so their shared subgraphs are only visited once
+        var recorder = OperationRecorder.start("ite", "import");
+        var table = new NodeTable(variables.length);
 
-        mapLevel.put(left, leftNode);
+        var f = table.importNode(this.table, rootId);
+        var g = table.importNode(thenBranch.table, thenBranch.rootId);
+        var h = table.importNode(elseBranch.table, elseBranch.rootId);
 
-        var containsRight = mapLevel.containsKey(right);
-        var rightNode = mapLevel.getOrDefault(right, right.equals("0") ? falseLeaf : right.equals("1") ? trueLeaf : new Node(right));
+        recorder.phase("apply");
 
-        rightNode.addParent(root);
-        root.setRight(rightNode);
+        var node = table.ite(f, g, h);
 
-        mapLevel.put(right, rightNode);
+        return finish(recorder, table, node);
+    }
 
-        if (!left.equals("0") && !left.equals("1")) {
-            if (!containsLeft) {
-                parse(leftNode, order.substring(1));
-            } else {
-                sReduction(leftNode);
+    // the function with the variable fixed to the value (the variable stays in the order, but no node tests it anymore)
+    public BinaryDecisionDiagram restrict(String variable, boolean value) {
+        return restrict(Map.of(variable, value));
+    }
+
+    public BinaryDecisionDiagram restrict(Map<String, Boolean> values) {
+        var recorder = OperationRecorder.start("restrict", "import");
+        var table = new NodeTable(variables.length);
+        var node = table.importNode(this.table, rootId);
+
+        recorder.phase("apply");
+
+        for (var entry : values.entrySet()) {
+            node = table.restrict(node, levelOf(entry.getKey()), entry.getValue());
+        }
+
+        return finish(recorder, table, node);
+    }
+
+    // the function is true for some value of the given variables
+    public BinaryDecisionDiagram exists(String... variables) {
+        return quantify("exists", variables, NodeTable::exists);
+    }
+
+    // the function is true for every value of the given variables
+    public BinaryDecisionDiagram forall(String... variables) {
+        return quantify("forall", variables, NodeTable::forall);
+    }
+
+    // the function with the other diagram substituted for the variable
+    public BinaryDecisionDiagram compose(String variable, BinaryDecisionDiagram other) {
+        requireSameOrder(other);
+
+        var level = levelOf(variable);
+        var recorder = OperationRecorder.start("compose", "import");
+        var table = new NodeTable(variables.length);
+
+        var f = table.importNode(this.table, rootId);
+        var g = table.importNode(other.table, other.rootId);
+
+        recorder.phase("apply");
+
+        var node = table.compose(f, level, g);
+
+        return finish(recorder, table, node);
+    }
+
+    private BinaryDecisionDiagram quantify(String operation, String[] quantified, Operator operator) {
+        var literals = new int[quantified.length];
+
+        for (int i = 0; i < quantified.length; i++) {
+            literals[i] = levelOf(quantified[i]) << 1;
+        }
+
+        var recorder = OperationRecorder.start(operation, "import");
+        var table = new NodeTable(variables.length);
+        var f = table.importNode(this.table, rootId);
+
+        recorder.phase("apply");
+
+        var node = operator.apply(table, f, table.cube(literals));
+
+        return finish(recorder, table, node);
+    }
+
+    // compacts the result of an operation into a new diagram and reports the operation
+    private BinaryDecisionDiagram finish(OperationRecorder recorder, NodeTable table, int node) {
+        var result = new BinaryDecisionDiagram(variables);
+
+        recorder.phase("compact");
+
+        result.store(table, node);
+
+        recorder.finish(table, result);
+
+        return result;
+    }
+
+    private int levelOf(String variable) {
+        for (int level = 0; level < variables.length; level++) {
+            if (variables[level].equals(variable)) {
+                return level;
             }
         }
 
-        if (!right.equals("0") && !right.equals("1")) {
-            if (!containsRight) {
-                parse(rightNode, order.substring(1));
-            } else {
-                sReduction(rightNode);
+        throw new IllegalArgumentException("The variable " + variable + " is missing from the order!");
+    }
+
+    // true if both diagrams represent the same function, even when their orders differ
+    public boolean isEquivalent(BinaryDecisionDiagram other) {
+        var levels = new HashMap<String, Integer>();
+
+        for (int level = 0; level < variables.length; level++) {
+            levels.put(variables[level], level);
+        }
+
+        if (variables.length != other.variables.length || !Arrays.stream(other.variables).allMatch(levels::containsKey)) {
+            throw new IllegalArgumentException("The diagrams must have the same variables!");
+        }
+
+        var table = new NodeTable(variables.length);
+        var f = table.importNode(this.table, rootId);
+
+        // the other diagram is rebuilt in this order bottom-up, and both results are canonical within the common table
+        var nodes = new int[other.table.count()];
+
+        nodes[NodeTable.FALSE] = NodeTable.FALSE;
+        nodes[NodeTable.TRUE] = NodeTable.TRUE;
+
+        for (int id = 2; id < nodes.length; id++) {
+            var level = levels.get(other.variables[other.table.level(id)]);
+            var variable = table.makeNode(level, NodeTable.FALSE, NodeTable.TRUE);
+
+            nodes[id] = table.ite(variable, nodes[other.table.high(id)], nodes[other.table.low(id)]);
+        }
+
+        return f == nodes[other.rootId];
+    }
+
+    private static BinaryDecisionDiagram apply(String operation, BinaryDecisionDiagram first, BinaryDecisionDiagram second, Operator operator) {
+        first.requireSameOrder(second);
+
+        // both operands are copied into a common unique table, so their shared subgraphs are only visited once
+        var recorder = OperationRecorder.start(operation, "import");
+        var table = new NodeTable(first.variables.length);
+
+        var f = table.importNode(first.table, first.rootId);
+        var g = table.importNode(second.table, second.rootId);
+
+        recorder.phase("apply");
+
+        var node = operator.apply(table, f, g);
+
+        return first.finish(recorder, table, node);
+    }
+
+    private void requireSameOrder(BinaryDecisionDiagram other) {
+        if (!Arrays.equals(variables, other.variables)) {
+            throw new IllegalArgumentException("The diagrams must have the same order!");
+        }
+    }
+
+    // reorders the variables in place by Rudell's sifting
+    public void sift() {
+        var recorder = OperationRecorder.start("sift", "sift");
+        var sifter = new Sifter(table, rootId);
+
+        sifter.sift();
+
+        recorder.phase("compact");
+
+        store(sifter.getTable(), sifter.getRoot());
+
+        variables = permute(variables, sifter.getVariables());
+        root = null;
+
+        recorder.finish(sifter.getTable(), this);
+    }
+
+    private void build(long[] cubes, int reorderThreshold, ComputedCache cache, OperationRecorder recorder) {
+        var builder = new NodeTable(variables.length);
+        var result = NodeTable.FALSE;
+
+        builder.setCache(cache);
+
+        // every clause is built as a cube and OR-ed into the result
+        for (int i = 0; i < cubes.length; i += 2) {
+            result = builder.or(result, builder.cube(cubes[i], cubes[i + 1]));
+
+            if (builder.count() > reorderThreshold) {
+                var sifter = new Sifter(builder, result);
+
+                recorder.count(builder);
+                recorder.phase("sift");
+
+                sifter.sift();
+
+                builder = sifter.getTable();
+                result = sifter.getRoot();
+                variables = permute(variables, sifter.getVariables());
+
+                // the remaining clauses follow their variables to the new levels
+                cubes = Cubes.permute(cubes, sifter.getVariables());
+
+                builder.setCache(cache);
+
+                // the threshold is raised to prevent the sifting from running after every clause
+                reorderThreshold = Math.max(reorderThreshold, 2 * builder.count());
+
+                recorder.phase("build");
             }
         }
 
-        sReduction(root);
+        recorder.phase("compact");
+
+        store(builder, result);
+
+        recorder.finish(builder, this);
     }
 
-    private void sReduction(Node root) {
-        if (root.getLeft() != null && root.getRight() != null && root.getLeft().getFunction().equals(root.getRight().getFunction())) {
-            var child = root.getLeft();
+    private void store(NodeTable builder, int result) {
+        table = builder.compact(result);
+        rootId = NodeTable.isLeaf(result) ? result : table.count() - 1;
+    }
 
-            child.removeParent(root);
+    // converting the reduced table into the linked node representation
+    private Node toNode() {
+        if (isNamed()) {
+            throw new IllegalStateException("The linked representation is only available for capital-letter variables!");
+        }
 
-            if (!root.equals(this.root)) {
-                for (var grandparent : root.getParents()) {
-                    child.addParent(grandparent);
+        var nodes = new Node[table.count()];
 
-                    if (root.equals(grandparent.getLeft())) {
-                        grandparent.setLeft(child);
-                    }
+        nodes[NodeTable.FALSE] = falseLeaf;
+        nodes[NodeTable.TRUE] = trueLeaf;
+
+        // the table is compact, so the children of a node always have lower ids than the node itself
+        for (int id = 2; id < table.count(); id++) {
+            var node = new Node(variables[table.level(id)].charAt(0));
+
+            var left = nodes[table.low(id)];
+            var right = nodes[table.high(id)];
+
+            left.addParent(node);
+            node.setLeft(left);
 
-                    if (root.equals(grandparent.getRight())) {
-                        grandparent.setRight(child);
+            right.addParent(node);
+            node.setRight(right);
+
+            nodes[id] = node;
+        }
+
+        return nodes[rootId];
+    }
+
+    private static String[] permute(String[] variables, int[] permutation) {
+        var permuted = new String[permutation.length];
+
+        for (int level = 0; level < permutation.length; level++) {
+            permuted[level] = variables[permutation[level]];
+        }
+
+        return permuted;
+    }
+
+    private static String[] letters(String order) {
+        return order.chars().mapToObj(Character::toString).toArray(String[]::new);
+    }
+
+    // the letter-based DNF notation and the linked representation only work with capital-letter variables
+    private boolean isNamed() {
+        return Arrays.stream(variables).anyMatch(v -> v.length() != 1 || v.charAt(0) < 'A' || v.charAt(0) > 'Z');
+    }
+
+    // the number of paths to the TRUE leaf counted bottom-up in one pass, saturating just above MAX_FUNCTION_PATHS
+    private int pathCount() {
+        if (NodeTable.isLeaf(rootId)) {
+            return 1;
+        }
+
+        var counts = new int[table.count()];
+
+        counts[NodeTable.TRUE] = 1;
+
+        for (int id = 2; id < counts.length; id++) {
+            counts[id] = Math.min(counts[table.low(id)] + counts[table.high(id)], MAX_FUNCTION_PATHS + 1);
+        }
+
+        return counts[rootId];
+    }
+
+    // the paths to the TRUE leaf in the notation of create() (e.g., A!B + C), sorted like the functions of the linked nodes
+    // (the letters of a clause by their character codes, so a negated variable is written as a lowercase letter)
+    private String toDnf() {
+        if (NodeTable.isLeaf(rootId)) {
+            return rootId == NodeTable.TRUE ? "1" : "0";
+        }
+
+        var clauses = new TreeSet<String>();
+
+        addLetterPaths(rootId, new char[variables.length], 0, clauses);
+
+        return joinClauses(clauses);
+    }
+
+    // sorted clauses with the negated variables in lowercase (e.g., ABc) in the notation of create() (e.g., AB!C)
+    private static String joinClauses(SortedSet<String> clauses) {
+        return clauses.stream()
+                .map(clause -> clause.chars()
+                        .mapToObj(c -> Character.isLowerCase(c) ? "!" + (char) Character.toUpperCase(c) : String.valueOf((char) c))
+                        .collect(Collectors.joining()))
+                .collect(Collectors.joining(" + "));
+    }
+
+    private void addLetterPaths(int node, char[] literals, int length, Set<String> clauses) {
+        if (node == NodeTable.TRUE) {
+            var clause = Arrays.copyOf(literals, length);
+
+            Arrays.sort(clause);
+            clauses.add(new String(clause));
+        } else if (node != NodeTable.FALSE) {
+            var variable = variables[table.level(node)].charAt(0);
+
+            literals[length] = Character.toLowerCase(variable);
+            addLetterPaths(table.low(node), literals, length + 1, clauses);
+
+            literals[length] = variable;
+            addLetterPaths(table.high(node), literals, length + 1, clauses);
+        }
+    }
+
+    // a DNF of the paths to the TRUE leaf in the syntax of parse()
+    private String toExpression() {
+        if (NodeTable.isLeaf(rootId)) {
+            return rootId == NodeTable.TRUE ? "1" : "0";
+        }
+
+        var clauses = new ArrayList<String>();
+        var literals = new ArrayDeque<String>();
+
+        addPaths(rootId, literals, clauses);
+
+        return String.join(" | ", clauses);
+    }
+
+    private void addPaths(int node, Deque<String> literals, List<String> clauses) {
+        if (node == NodeTable.TRUE) {
+            clauses.add(literals.isEmpty() ? "1" : String.join(" & ", literals));
+        } else if (node != NodeTable.FALSE) {
+            var variable = variables[table.level(node)];
+
+            literals.addLast("!" + variable);
+            addPaths(table.low(node), literals, clauses);
+            literals.removeLast();
+
+            literals.addLast(variable);
+            addPaths(table.high(node), literals, clauses);
+            literals.removeLast();
+        }
+    }
+
+    // a depth-first walk over the paths, which keeps only the current path
+    // (the diagram must not be reordered while the iterator is in use)
+    private class CubeIterator implements Iterator<Map<String, Boolean>> {
+        private final NodeTable table = BinaryDecisionDiagram.this.table;
+
+        // the nodes of the current path and the branches taken from them (0 = none yet, 1 = low, 2 = high)
+        private final int[] nodes = new int[variables.length + 1];
+        private final int[] branches = new int[variables.length + 1];
+        private int depth;
+
+        private Map<String, Boolean> next;
+
+        private CubeIterator() {
+            nodes[0] = rootId;
+            depth = rootId == NodeTable.FALSE ? -1 : 0;
+            next = advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map<String, Boolean> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+
+            var current = next;
+
+            next = advance();
+
+            return current;
+        }
+
+        private Map<String, Boolean> advance() {
+            while (depth >= 0) {
+                var node = nodes[depth];
+
+                if (node == NodeTable.TRUE) {
+                    var cube = new LinkedHashMap<String, Boolean>();
+
+                    for (int i = 0; i < depth; i++) {
+                        cube.put(variables[table.level(nodes[i])], branches[i] == 2);
                     }
+
+                    depth--;
+
+                    return cube;
+                }
+
+                if (branches[depth] == 2) {
+                    depth--;
+
+                    continue;
+                }
+
+                var child = branches[depth]++ == 0 ? table.low(node) : table.high(node);
+
+                if (child != NodeTable.FALSE) {
+                    depth++;
+                    nodes[depth] = child;
+                    branches[depth] = 0;
                 }
-            } else {
-                this.root = child;
             }
-        }
-    }
 
-    // used for getting all the unique nodes of the BDD
-    private void fillNodeSet(Set<Node> nodes, Node root) {
-        if (root == null) {
-            return;
+            return null;
         }
+    }
 
-        nodes.add(root);
+    @FunctionalInterface
+    private interface Operator {
+        int apply(NodeTable table, int f, int g);
+    }
 
-        fillNodeSet(nodes, root.getLeft());
-        fillNodeSet(nodes, root.getRight());
+    // the size is the number of nodes reachable from the root, since the table still holds the intermediate results
+    private record Candidate(int index, String order, NodeTable table, int root, int size) {
+        // ties are resolved in favor of the earlier rotation to keep the result deterministic
+        public boolean isBetterThan(Candidate other) {
+            return size() < other.size() || size() == other.size() && index < other.index;
+        }
     }
 
-    public static int fullNodeCount(int variables) {
-        return (int) (Math.pow(2, variables + 1) - 1);
+    // 2^(n + 1) - 1, which no longer fits into a long past 62 variables
+    public static BigInteger fullNodeCount(int variables) {
+        return BigInteger.ONE.shiftLeft(variables + 1).subtract(BigInteger.ONE);
     }
 
     protected static class Node {
-        private final String function;
+        // derived lazily from the children for non-leaf nodes
+        private String function;
 
         // non-formatted function
-        private final String functionDnf;
+        private String functionDnf;
+
+        // the variable tested by the node ('\0' for leaves)
+        private final char variable;
 
         private Node left = null;
         private Node right = null;
@@ -253,18 +974,34 @@ public class BinaryDecisionDiagram {
         public Node(String function) {
             this.function = function;
 
+            variable = '\0';
             parents = new HashSet<>();
+        }
 
-            var pattern = Pattern.compile("([a-z])");
-            var matcher = pattern.matcher(function);
+        public Node(char variable) {
+            this.variable = variable;
 
-            functionDnf = matcher.replaceAll(match -> "!" + match.group().toUpperCase()).replace("+", " + ");
+            parents = new HashSet<>();
         }
 
         public String getFunction() {
+            if (function == null) {
+                // Shannon expansion: !X * left + X * right
+                var clauses = new TreeSet<String>();
+
+                addClauses(clauses, left, Character.toLowerCase(variable));
+                addClauses(clauses, right, variable);
+
+                function = clauses.isEmpty() ? "0" : String.join("+", clauses);
+            }
+
             return function;
         }
 
+        public char getVariable() {
+            return variable;
+        }
+
         public Node getLeft() {
             return left;
         }
@@ -289,51 +1026,69 @@ public class BinaryDecisionDiagram {
             parents.add(parent);
         }
 
-        private void removeParent(Node parent) {
-            parents.remove(parent);
-        }
-
         public String getFunctionDnf() {
+            if (functionDnf == null) {
+                var pattern = Pattern.compile("([a-z])");
+                var matcher = pattern.matcher(getFunction());
+
+                functionDnf = matcher.replaceAll(match -> "!" + match.group().toUpperCase()).replace("+", " + ");
+            }
+
             return functionDnf;
         }
 
-        public static String format(String function) {
-            function = function.replaceAll("\\s+", "");
+        private static void addClauses(Set<String> clauses, Node child, char literal) {
+            var childFunction = child.getFunction();
 
-            var pattern = Pattern.compile("!([A-Z])");
-            var matcher = pattern.matcher(function);
+            if (childFunction.equals("0")) {
+                return;
+            }
 
-            var negated = matcher.replaceAll(match -> match.group().toLowerCase().substring(1));
+            if (childFunction.equals("1")) {
+                clauses.add(String.valueOf(literal));
 
-            return Arrays.stream(negated.split("\\+"))
-                    .map(c -> c.chars().mapToObj(i -> (char) i).sorted().map(String::valueOf).collect(Collectors.joining("")))
-                    .distinct()
-                    .sorted()
-                    .collect(Collectors.joining("+"));
-        }
+                return;
+            }
 
-        public static String parseDigits(String input) {
-            var functionVariables = getDnfVariablesOrdered(input, true, true);
+            for (var clause : childFunction.split("\\+")) {
+                clauses.add((literal + clause).chars()
+                        .sorted()
+                        .mapToObj(i -> String.valueOf((char) i))
+                        .collect(Collectors.joining("")));
+            }
+        }
 
-            var filtered = Arrays.stream(input.split("\\+")).filter(c -> !c.contains("0")).toList();
+        // the simplified clauses (without the contradictory, duplicate and absorbed ones) as a DNF, e.g., AB!C + !A,
+        // sorted like the functions of the linked nodes whatever the order is (see toDnf())
+        public static String format(long[] cubes, String order) {
+            if (cubes.length == 0) {
+                return "0";
+            }
 
-            if (filtered.stream().anyMatch(c -> c.matches("1+"))) {
+            if (Cubes.isTautology(cubes)) {
                 return "1";
             }
 
-            var parsed = filtered.isEmpty() ? "0" : filtered.stream().distinct()
-                    .collect(Collectors.joining("+"))
-                    .replace("1", "");
+            var clauses = new TreeSet<String>();
 
-            filtered = Arrays.stream(parsed.split("\\+")).distinct().toList();
+            for (int i = 0; i < cubes.length; i += 2) {
+                var literals = new StringBuilder();
 
-            for (var variable : functionVariables) {
-                if (filtered.contains(variable) && filtered.contains(variable.toLowerCase())) {
-                    return "1";
+                for (int level = 0; level < order.length(); level++) {
+                    if ((cubes[i] >>> level & 1) == 1) {
+                        literals.append(order.charAt(level));
+                    } else if ((cubes[i + 1] >>> level & 1) == 1) {
+                        literals.append(Character.toLowerCase(order.charAt(level)));
+                    }
                 }
+
+                var clause = literals.toString().toCharArray();
+
+                Arrays.sort(clause);
+                clauses.add(new String(clause));
             }
 
-            return String.join("+", filtered);
+            return joinClauses(clauses);
         }
 
         public static List<String> getDnfVariablesOrdered(String input, boolean distinct, boolean filterLetters) {
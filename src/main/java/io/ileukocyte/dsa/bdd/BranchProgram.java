@@ -0,0 +1,297 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.BitSet;
+import java.util.function.LongPredicate;
+
+// a diagram flattened into an int[] of (level, low, high) triples ordered by level, so the root is at index 0
+// and every evaluation only moves forward through the array
+//
+// a child is either the index of its triple or a leaf code (FALSE_LEAF or TRUE_LEAF)
+public class BranchProgram implements LongPredicate {
+    public static final int FALSE_LEAF = -1;
+    public static final int TRUE_LEAF = -2;
+
+    // the JIT skips the methods larger than 8000 bytes of bytecode (unless -XX:-DontCompileHugeMethods is set),
+    // so larger diagrams are better off with the branch table
+    public static final int MAX_COMPILED_CODE_SIZE = 8000;
+
+    // lload_1, ldc2_w, land, lconst_0, lcmp, ifeq, goto
+    private static final int NODE_CODE_SIZE = 13;
+
+    private final int variableCount;
+    private final int[] program;
+
+    // the entry point, which is a leaf code for the constant functions
+    private final int start;
+
+    BranchProgram(BinaryDecisionDiagram bdd) {
+        var table = bdd.getTable();
+        var count = table.count();
+
+        variableCount = bdd.getVariableCount();
+
+        // ordering the nodes by ascending level (a counting sort, since the levels are bounded)
+        var starts = new int[variableCount + 1];
+
+        for (int node = 2; node < count; node++) {
+            starts[table.level(node) + 1]++;
+        }
+
+        for (int level = 0; level < variableCount; level++) {
+            starts[level + 1] += starts[level];
+        }
+
+        var indices = new int[count];
+
+        indices[NodeTable.FALSE] = FALSE_LEAF;
+        indices[NodeTable.TRUE] = TRUE_LEAF;
+
+        for (int node = 2; node < count; node++) {
+            indices[node] = 3 * starts[table.level(node)]++;
+        }
+
+        program = new int[3 * (count - 2)];
+
+        for (int node = 2; node < count; node++) {
+            program[indices[node]] = table.level(node);
+            program[indices[node] + 1] = indices[table.low(node)];
+            program[indices[node] + 2] = indices[table.high(node)];
+        }
+
+        // the root is the only node at the topmost level present
+        start = indices[bdd.getRootId()];
+    }
+
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    // a copy of the flat program
+    public int[] toArray() {
+        return program.clone();
+    }
+
+    // the number of non-leaf nodes
+    public int size() {
+        return program.length / 3;
+    }
+
+    // bit i of the input holds the value of the i-th variable of the order
+    @Override
+    public boolean test(long input) {
+        var index = start;
+
+        while (index >= 0) {
+            index = (input >>> program[index] & 1) == 0 ? program[index + 1] : program[index + 2];
+        }
+
+        return index == TRUE_LEAF;
+    }
+
+    // bit i of the input holds the value of the i-th variable of the order
+    public boolean test(BitSet input) {
+        var index = start;
+
+        while (index >= 0) {
+            index = input.get(program[index]) ? program[index + 2] : program[index + 1];
+        }
+
+        return index == TRUE_LEAF;
+    }
+
+    // an evaluator with the diagram emitted as straight-line branching bytecode of a hidden class,
+    // or the branch table itself if the code would be too large for the JIT
+    public LongPredicate compile() {
+        if (variableCount > Long.SIZE) {
+            throw new IllegalStateException("A long input can only hold up to 64 variables!");
+        }
+
+        if ((long) size() * NODE_CODE_SIZE + 4 > MAX_COMPILED_CODE_SIZE) {
+            return this;
+        }
+
+        try {
+            var lookup = MethodHandles.lookup().defineHiddenClass(emitClass(), true);
+
+            return (LongPredicate) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("The diagram could not be compiled!", e);
+        }
+    }
+
+    // a class file of version 49, which predates the StackMapTable requirement, implementing LongPredicate
+    private byte[] emitClass() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+
+        // the constant pool entries of the masks start after the fixed ones, each long taking two slots
+        var levels = new boolean[variableCount];
+
+        for (int index = 0; index < program.length; index += 3) {
+            levels[program[index]] = true;
+        }
+
+        var maskEntries = new int[variableCount];
+        var poolSize = 14;
+
+        for (int level = 0; level < variableCount; level++) {
+            if (levels[level]) {
+                maskEntries[level] = poolSize;
+                poolSize += 2;
+            }
+        }
+
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(49);
+        out.writeShort(poolSize);
+
+        // #1, #2: this class
+        utf8(out, BranchProgram.class.getPackageName().replace('.', '/') + "/CompiledDiagram");
+        classEntry(out, 1);
+
+        // #3, #4: the superclass
+        utf8(out, "java/lang/Object");
+        classEntry(out, 3);
+
+        // #5, #6: the interface
+        utf8(out, "java/util/function/LongPredicate");
+        classEntry(out, 5);
+
+        // #7 - #10: Object.<init>
+        utf8(out, "<init>");
+        utf8(out, "()V");
+        out.writeByte(12);
+        out.writeShort(7);
+        out.writeShort(8);
+        out.writeByte(10);
+        out.writeShort(4);
+        out.writeShort(9);
+
+        // #11 - #13: the method name, its descriptor and the attribute name
+        utf8(out, "test");
+        utf8(out, "(J)Z");
+        utf8(out, "Code");
+
+        for (int level = 0; level < variableCount; level++) {
+            if (levels[level]) {
+                out.writeByte(5);
+                out.writeLong(1L << level);
+            }
+        }
+
+        // public final super
+        out.writeShort(0x0031);
+        out.writeShort(2);
+        out.writeShort(4);
+        out.writeShort(1);
+        out.writeShort(6);
+
+        // no fields
+        out.writeShort(0);
+
+        out.writeShort(2);
+
+        // the constructor: aload_0, invokespecial Object.<init>, return
+        method(out, 7, 8, 1, 1, new byte[] { 0x2A, (byte) 0xB7, 0, 10, (byte) 0xB1 });
+
+        method(out, 11, 12, 4, 3, emitCode(maskEntries));
+
+        // no class attributes
+        out.writeShort(0);
+
+        return bytes.toByteArray();
+    }
+
+    private byte[] emitCode(int[] maskEntries) {
+        // the constant functions return straight away
+        if (start < 0) {
+            return new byte[] { (byte) (start == TRUE_LEAF ? 0x04 : 0x03), (byte) 0xAC };
+        }
+
+        var nodes = size();
+
+        // the FALSE and the TRUE leaf returns follow the nodes
+        var falseOffset = nodes * NODE_CODE_SIZE;
+        var trueOffset = falseOffset + 2;
+
+        var code = new byte[trueOffset + 2];
+
+        for (int node = 0; node < nodes; node++) {
+            var index = 3 * node;
+            var offset = node * NODE_CODE_SIZE;
+            var mask = maskEntries[program[index]];
+
+            // (input & mask) == 0 ? low : high
+            code[offset] = 0x1F;
+            code[offset + 1] = 0x14;
+            code[offset + 2] = (byte) (mask >> 8);
+            code[offset + 3] = (byte) mask;
+            code[offset + 4] = 0x7F;
+            code[offset + 5] = 0x09;
+            code[offset + 6] = (byte) 0x94;
+
+            branch(code, offset + 7, 0x99, target(program[index + 1], falseOffset, trueOffset));
+            branch(code, offset + 10, 0xA7, target(program[index + 2], falseOffset, trueOffset));
+        }
+
+        // iconst_0, ireturn, iconst_1, ireturn
+        code[falseOffset] = 0x03;
+        code[falseOffset + 1] = (byte) 0xAC;
+        code[trueOffset] = 0x04;
+        code[trueOffset + 1] = (byte) 0xAC;
+
+        return code;
+    }
+
+    private static int target(int child, int falseOffset, int trueOffset) {
+        return switch (child) {
+            case FALSE_LEAF -> falseOffset;
+            case TRUE_LEAF -> trueOffset;
+            default -> child / 3 * NODE_CODE_SIZE;
+        };
+    }
+
+    // a jump instruction with a 16-bit offset relative to its own position
+    private static void branch(byte[] code, int offset, int opcode, int target) {
+        var relative = target - offset;
+
+        code[offset] = (byte) opcode;
+        code[offset + 1] = (byte) (relative >> 8);
+        code[offset + 2] = (byte) relative;
+    }
+
+    private static void method(DataOutputStream out, int name, int descriptor, int maxStack, int maxLocals, byte[] code) throws IOException {
+        // public
+        out.writeShort(0x0001);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+
+        out.writeShort(13);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+
+        // no exception handlers or attributes
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    private static void utf8(DataOutputStream out, String value) throws IOException {
+        out.writeByte(1);
+        out.writeUTF(value);
+    }
+
+    private static void classEntry(DataOutputStream out, int name) throws IOException {
+        out.writeByte(7);
+        out.writeShort(name);
+    }
+}
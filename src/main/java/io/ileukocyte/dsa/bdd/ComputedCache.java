@@ -0,0 +1,191 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.util.function.IntPredicate;
+
+// a lossy direct-mapped memo table of operation results keyed by (operator, f, g, h)
+// a colliding entry simply overwrites the previous one, so the memory never exceeds the capacity
+//
+// the entries start small and double whenever an operation inserts more results than there are slots,
+// so a small operation never allocates the full capacity; a cache may be shared by several tables,
+// but it only holds the results of the one that used it last
+public class ComputedCache {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final int MISS = -1;
+
+    private static final int INITIAL_SLOTS = 1 << 10;
+
+    // operator, f, g, h, result
+    private static final int ENTRY_SIZE = 5;
+
+    private final int capacity;
+
+    // allocated on the first insertion, so tables that never run an operation stay small
+    private int[] entries;
+    private int slots = 0;
+    private int insertions = 0;
+
+    // the id of the table whose node ids the entries refer to (not the table itself, which may be discarded meanwhile)
+    private long owner = -1;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public ComputedCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ComputedCache(int capacity) {
+        if (capacity < 1 || capacity > 1 << 26) {
+            throw new IllegalArgumentException("The capacity must be between 1 and 2^26 entries!");
+        }
+
+        // rounding up to a power of two so that the index is a simple mask
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    // the number of entries allocated so far, which grows up to the capacity
+    public int getSlots() {
+        return slots;
+    }
+
+    // the size of the entry array allocated so far
+    public long memoryFootprint() {
+        return entries == null ? 0 : 16L + 4L * entries.length;
+    }
+
+    // the entries of another table are invalidated once a table starts using the cache
+    public void claim(long table) {
+        if (owner != table) {
+            clear();
+
+            owner = table;
+        }
+    }
+
+    public int lookup(int operator, int f, int g, int h) {
+        if (entries != null) {
+            var entry = index(operator, f, g, h);
+
+            if (entries[entry] == operator && entries[entry + 1] == f && entries[entry + 2] == g && entries[entry + 3] == h) {
+                hits++;
+
+                return entries[entry + 4];
+            }
+        }
+
+        misses++;
+
+        return MISS;
+    }
+
+    public void insert(int operator, int f, int g, int h, int result) {
+        if (entries == null) {
+            allocate(Math.min(capacity, INITIAL_SLOTS));
+        } else if (slots < capacity && ++insertions > slots) {
+            grow();
+        }
+
+        var entry = index(operator, f, g, h);
+
+        if (entries[entry] != -1
+                && (entries[entry] != operator || entries[entry + 1] != f || entries[entry + 2] != g || entries[entry + 3] != h)) {
+            evictions++;
+        }
+
+        entries[entry] = operator;
+        entries[entry + 1] = f;
+        entries[entry + 2] = g;
+        entries[entry + 3] = h;
+        entries[entry + 4] = result;
+    }
+
+    // invalidates all the entries (e.g., once the node ids they refer to are no longer valid) but keeps the counters
+    public void clear() {
+        if (entries != null) {
+            for (int entry = 0; entry < entries.length; entry += ENTRY_SIZE) {
+                entries[entry] = -1;
+            }
+        }
+    }
+
+    // invalidates the entries referring to any of the given ids, so the others survive a garbage collection
+    public int purge(IntPredicate dead) {
+        var purged = 0;
+
+        if (entries != null) {
+            for (int entry = 0; entry < entries.length; entry += ENTRY_SIZE) {
+                if (entries[entry] != -1
+                        && (dead.test(entries[entry + 1]) || dead.test(entries[entry + 2])
+                        || dead.test(entries[entry + 3]) || dead.test(entries[entry + 4]))) {
+                    entries[entry] = -1;
+                    purged++;
+                }
+            }
+        }
+
+        return purged;
+    }
+
+    public void resetStatistics() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ComputedCache[capacity=%d, slots=%d, hits=%d, misses=%d, evictions=%d, hit rate=%.2f%%]",
+                capacity, slots, hits, misses, evictions, getHitRate() * 100);
+    }
+
+    private void allocate(int slots) {
+        this.slots = slots;
+
+        entries = new int[slots * ENTRY_SIZE];
+        insertions = 0;
+
+        clear();
+    }
+
+    // the entries are rehashed into twice as many slots (without counting the collisions as evictions)
+    private void grow() {
+        var previous = entries;
+
+        allocate(2 * slots);
+
+        for (int entry = 0; entry < previous.length; entry += ENTRY_SIZE) {
+            if (previous[entry] != -1) {
+                System.arraycopy(previous, entry, entries, index(previous[entry], previous[entry + 1], previous[entry + 2], previous[entry + 3]), ENTRY_SIZE);
+            }
+        }
+    }
+
+    private int index(int operator, int f, int g, int h) {
+        var hash = operator * 0x27D4EB2D + f * 0x9E3779B9 + g * 0x85EBCA6B + h * 0xC2B2AE35;
+
+        hash ^= hash >>> 15;
+
+        return (hash & (slots - 1)) * ENTRY_SIZE;
+    }
+}
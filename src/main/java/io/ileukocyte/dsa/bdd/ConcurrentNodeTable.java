@@ -0,0 +1,411 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// a unique table that several threads can build diagrams over the same order in at once
+// the nodes are stored in fixed-size chunks that never move, so they can be read without locking,
+// while the hash chains are split into independently locked stripes
+public class ConcurrentNodeTable implements NodeStore {
+    public static final int FALSE = NodeTable.FALSE;
+    public static final int TRUE = NodeTable.TRUE;
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << (30 - CHUNK_BITS);
+
+    // (level, low, high, next) for every node
+    private static final int NODE_SIZE = 4;
+
+    private static final int STRIPES = 64;
+
+    // the top levels of an operation are split into fork-join subtasks
+    private static final int FORK_DEPTH = 6;
+
+    private static final int AND = 0;
+    private static final int OR = 1;
+    private static final int XOR = 2;
+    private static final int ITE = 3;
+
+    private final String order;
+    private final ForkJoinPool pool;
+
+    private final AtomicReferenceArray<int[]> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger count = new AtomicInteger(2);
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final AtomicReferenceArray<CacheEntry> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ConcurrentNodeTable(String order) {
+        this(order, ComputedCache.DEFAULT_CAPACITY, ForkJoinPool.commonPool());
+    }
+
+    public ConcurrentNodeTable(String order, int cacheCapacity, ForkJoinPool pool) {
+        if (order.isEmpty() || order.chars().distinct().count() != order.length() || !order.matches("[A-Z]+")) {
+            throw new IllegalArgumentException("The order must consist of distinct capital letters!");
+        }
+
+        this.order = order;
+        this.pool = pool;
+
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        cache = new AtomicReferenceArray<>(cacheCapacity <= 1 ? 1 : Integer.highestOneBit(cacheCapacity - 1) << 1);
+
+        var leaves = new int[CHUNK_SIZE * NODE_SIZE];
+
+        // the leaves are placed below the last variable level
+        leaves[FALSE * NODE_SIZE] = order.length();
+        leaves[TRUE * NODE_SIZE] = order.length();
+
+        chunks.set(0, leaves);
+    }
+
+    public String getOrder() {
+        return order;
+    }
+
+    @Override
+    public int getVariableCount() {
+        return order.length();
+    }
+
+    @Override
+    public int count() {
+        return count.get();
+    }
+
+    @Override
+    public int level(int node) {
+        return field(node, 0);
+    }
+
+    @Override
+    public int low(int node) {
+        return field(node, 1);
+    }
+
+    @Override
+    public int high(int node) {
+        return field(node, 2);
+    }
+
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+
+    public int makeNode(int level, int low, int high) {
+        // S-reduction
+        if (low == high) {
+            return low;
+        }
+
+        var hash = NodeStore.hash(level, low, high);
+        var stripe = stripes[hash & (STRIPES - 1)];
+
+        stripe.lock.lock();
+
+        try {
+            // I-reduction
+            var bucket = (hash >>> 6) & (stripe.buckets.length - 1);
+
+            for (int node = stripe.buckets[bucket]; node != -1; node = field(node, 3)) {
+                if (level(node) == level && low(node) == low && high(node) == high) {
+                    return node;
+                }
+            }
+
+            // the id is only allocated once the node is known to be new, so no id is ever wasted
+            var node = count.getAndIncrement();
+
+            if (node >= MAX_CHUNKS << CHUNK_BITS) {
+                throw new IllegalStateException("The node table is full!");
+            }
+
+            var chunk = chunk(node);
+            var offset = (node & (CHUNK_SIZE - 1)) * NODE_SIZE;
+
+            chunk[offset] = level;
+            chunk[offset + 1] = low;
+            chunk[offset + 2] = high;
+            chunk[offset + 3] = stripe.buckets[bucket];
+
+            stripe.buckets[bucket] = node;
+
+            if (++stripe.size > stripe.buckets.length) {
+                stripe.grow();
+            }
+
+            // the fields are published to the other threads by the lock release
+            return node;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // builds a DNF (e.g., ABC + A!B!C) by splitting its clauses into independently OR-ed halves
+    public int build(String function) {
+        var cubes = Cubes.simplify(Cubes.parse(function, order));
+
+        if (cubes.length == 0) {
+            return FALSE;
+        }
+
+        return pool.invoke(new BuildTask(cubes, 0, cubes.length / 2));
+    }
+
+    public int and(int f, int g) {
+        return pool.invoke(new ApplyTask(AND, f, g, 0));
+    }
+
+    public int or(int f, int g) {
+        return pool.invoke(new ApplyTask(OR, f, g, 0));
+    }
+
+    public int xor(int f, int g) {
+        return pool.invoke(new ApplyTask(XOR, f, g, 0));
+    }
+
+    public int not(int f) {
+        return xor(f, TRUE);
+    }
+
+    // if f then g else h
+    public int ite(int f, int g, int h) {
+        if (f == TRUE || g == h) {
+            return g;
+        }
+
+        if (f == FALSE) {
+            return h;
+        }
+
+        if (g == TRUE && h == FALSE) {
+            return f;
+        }
+
+        var cached = lookup(ITE, f, g, h);
+
+        if (cached != ComputedCache.MISS) {
+            return cached;
+        }
+
+        var level = Math.min(level(f), Math.min(level(g), level(h)));
+
+        var low = ite(cofactor(f, level, false), cofactor(g, level, false), cofactor(h, level, false));
+        var high = ite(cofactor(f, level, true), cofactor(g, level, true), cofactor(h, level, true));
+        var result = makeNode(level, low, high);
+
+        insert(ITE, f, g, h, result);
+
+        return result;
+    }
+
+    // a standalone copy of the diagram rooted in the node
+    public BinaryDecisionDiagram toDiagram(int root) {
+        return BinaryDecisionDiagram.of(order, this, root);
+    }
+
+    private int apply(int operator, int f, int g, int depth) {
+        var terminal = terminal(operator, f, g);
+
+        if (terminal != -1) {
+            return terminal;
+        }
+
+        // all the operators are commutative, so both argument orders share a cache entry
+        if (f > g) {
+            var temp = f;
+
+            f = g;
+            g = temp;
+        }
+
+        var cached = lookup(operator, f, g, 0);
+
+        if (cached != ComputedCache.MISS) {
+            return cached;
+        }
+
+        var level = Math.min(level(f), level(g));
+
+        int low;
+        int high;
+
+        if (depth < FORK_DEPTH) {
+            var lowTask = new ApplyTask(operator, cofactor(f, level, false), cofactor(g, level, false), depth + 1).fork();
+
+            high = apply(operator, cofactor(f, level, true), cofactor(g, level, true), depth + 1);
+            low = lowTask.join();
+        } else {
+            low = apply(operator, cofactor(f, level, false), cofactor(g, level, false), depth + 1);
+            high = apply(operator, cofactor(f, level, true), cofactor(g, level, true), depth + 1);
+        }
+
+        var result = makeNode(level, low, high);
+
+        insert(operator, f, g, 0, result);
+
+        return result;
+    }
+
+    private static int terminal(int operator, int f, int g) {
+        return switch (operator) {
+            case AND -> f == FALSE || g == FALSE ? FALSE : f == TRUE || f == g ? g : g == TRUE ? f : -1;
+            case OR -> f == TRUE || g == TRUE ? TRUE : f == FALSE || f == g ? g : g == FALSE ? f : -1;
+            case XOR -> f == g ? FALSE : f == FALSE ? g : g == FALSE ? f : NodeTable.isLeaf(f) && NodeTable.isLeaf(g) ? f ^ g : -1;
+            default -> throw new IllegalArgumentException("Unexpected operator: " + operator);
+        };
+    }
+
+    private int cofactor(int node, int level, boolean value) {
+        if (level(node) != level) {
+            return node;
+        }
+
+        return value ? high(node) : low(node);
+    }
+
+    // a cube in the mask form of Cubes, which is never contradictory after the simplification
+    private int cube(long positive, long negative) {
+        return NodeStore.cube(positive, negative, this::makeNode);
+    }
+
+    private int lookup(int operator, int f, int g, int h) {
+        var entry = cache.get(cacheIndex(operator, f, g, h));
+
+        // the entries are immutable, so a racing insertion can never be observed half-written
+        if (entry != null && entry.operator() == operator && entry.f() == f && entry.g() == g && entry.h() == h) {
+            hits.increment();
+
+            return entry.result();
+        }
+
+        misses.increment();
+
+        return ComputedCache.MISS;
+    }
+
+    private void insert(int operator, int f, int g, int h, int result) {
+        cache.set(cacheIndex(operator, f, g, h), new CacheEntry(operator, f, g, h, result));
+    }
+
+    private int cacheIndex(int operator, int f, int g, int h) {
+        var hash = operator * 0x27D4EB2D + f * 0x9E3779B9 + g * 0x85EBCA6B + h * 0xC2B2AE35;
+
+        return (hash ^ (hash >>> 15)) & (cache.length() - 1);
+    }
+
+    private int field(int node, int field) {
+        return chunks.get(node >>> CHUNK_BITS)[(node & (CHUNK_SIZE - 1)) * NODE_SIZE + field];
+    }
+
+    private int[] chunk(int node) {
+        var index = node >>> CHUNK_BITS;
+        var chunk = chunks.get(index);
+
+        if (chunk == null) {
+            chunks.compareAndSet(index, null, new int[CHUNK_SIZE * NODE_SIZE]);
+
+            chunk = chunks.get(index);
+        }
+
+        return chunk;
+    }
+
+    private final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private int[] buckets = new int[16];
+        private int size = 0;
+
+        private Stripe() {
+            Arrays.fill(buckets, -1);
+        }
+
+        // called with the lock held
+        private void grow() {
+            var old = buckets;
+
+            buckets = new int[old.length << 1];
+
+            Arrays.fill(buckets, -1);
+
+            for (var head : old) {
+                for (int node = head, next; node != -1; node = next) {
+                    next = field(node, 3);
+
+                    var bucket = (NodeStore.hash(level(node), low(node), high(node)) >>> 6) & (buckets.length - 1);
+                    var chunk = chunks.get(node >>> CHUNK_BITS);
+
+                    chunk[(node & (CHUNK_SIZE - 1)) * NODE_SIZE + 3] = buckets[bucket];
+                    buckets[bucket] = node;
+                }
+            }
+        }
+    }
+
+    private record CacheEntry(int operator, int f, int g, int h, int result) {}
+
+    // the tasks only live within a pool invocation and are never serialized (RecursiveTask is Serializable)
+    @SuppressWarnings("serial")
+    private final class ApplyTask extends RecursiveTask<Integer> {
+        private final int operator;
+        private final int f;
+        private final int g;
+        private final int depth;
+
+        private ApplyTask(int operator, int f, int g, int depth) {
+            this.operator = operator;
+            this.f = f;
+            this.g = g;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Integer compute() {
+            return apply(operator, f, g, depth);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class BuildTask extends RecursiveTask<Integer> {
+        // the (positive mask, negative mask) pairs, of which the task builds the ones with indices in [from, to)
+        private final long[] cubes;
+        private final int from;
+        private final int to;
+
+        private BuildTask(long[] cubes, int from, int to) {
+            this.cubes = cubes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from == 1) {
+                return cube(cubes[2 * from], cubes[2 * from + 1]);
+            }
+
+            var middle = (from + to) >>> 1;
+            var left = new BuildTask(cubes, from, middle).fork();
+            var right = new BuildTask(cubes, middle, to).compute();
+
+            return apply(OR, left.join(), right, 0);
+        }
+    }
+}
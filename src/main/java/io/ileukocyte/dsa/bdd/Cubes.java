@@ -0,0 +1,348 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.util.Arrays;
+
+// DNF clauses as interleaved (positive mask, negative mask) pairs, where bit i stands for the i-th variable of the order,
+// so that the preprocessing and the cofactors are bitwise operations on a primitive array
+//
+// e.g., A!C + B over the order ABC is { 0b001, 0b100, 0b010, 0b000 }
+class Cubes {
+    private Cubes() {}
+
+    // parses a DNF (e.g., ABC + A!B!C) in a single pass without any intermediate strings
+    //
+    // an empty clause would be a tautology, so it is rejected, except for a trailing '+' (e.g., AB +),
+    // which is ignored like it used to be by splitting the function into clauses
+    public static long[] parse(String function, String order) {
+        if (order.length() > Long.SIZE) {
+            throw new IllegalArgumentException("Only up to 64 variables can be represented as masks!");
+        }
+
+        var levels = new int['Z' - 'A' + 1];
+
+        Arrays.fill(levels, -1);
+
+        for (int level = 0; level < order.length(); level++) {
+            var variable = order.charAt(level);
+
+            if (variable < 'A' || variable > 'Z') {
+                throw new IllegalArgumentException("The order must consist of capital letters!");
+            }
+
+            levels[variable - 'A'] = level;
+        }
+
+        var cubes = new long[2 * (count(function, '+') + 1)];
+        var length = 0;
+        var negated = false;
+        var empty = true;
+
+        for (int i = 0; i <= function.length(); i++) {
+            var end = i == function.length();
+            var c = end ? '+' : function.charAt(i);
+
+            if (c == '+') {
+                if (negated) {
+                    throw new IllegalArgumentException("A negation must be followed by a variable!");
+                }
+
+                if (empty) {
+                    if (end && length > 0) {
+                        break;
+                    }
+
+                    throw new IllegalArgumentException("The function contains an empty clause!");
+                }
+
+                length += 2;
+                empty = true;
+            } else if (c == '!') {
+                if (negated) {
+                    throw new IllegalArgumentException("A negation must be followed by a variable!");
+                }
+
+                negated = true;
+            } else if (c >= 'A' && c <= 'Z') {
+                var level = levels[c - 'A'];
+
+                if (level == -1) {
+                    throw new IllegalArgumentException("The function and order provided do not correspond to each other!");
+                }
+
+                cubes[length + (negated ? 1 : 0)] |= 1L << level;
+                negated = false;
+                empty = false;
+            } else if (!Character.isWhitespace(c)) {
+                throw new IllegalArgumentException("The provided format is not correct! DNF (e.g., ABC + A!B!C) should be used instead!");
+            }
+        }
+
+        return length == cubes.length ? cubes : Arrays.copyOf(cubes, length);
+    }
+
+    // drops the contradictory (e.g., A!A), duplicate and subsumed cubes, leaving them sorted
+    public static long[] simplify(long[] cubes) {
+        var result = new long[cubes.length];
+        var length = 0;
+
+        for (int i = 0; i < cubes.length; i += 2) {
+            if ((cubes[i] & cubes[i + 1]) == 0) {
+                result[length++] = cubes[i];
+                result[length++] = cubes[i + 1];
+            }
+        }
+
+        return subsume(normalize(result, length));
+    }
+
+    // the cubes with the variable fixed: the contradicted ones are dropped and the satisfied literal is removed
+    public static long[] cofactor(long[] cubes, int level, boolean value) {
+        var bit = 1L << level;
+        var result = new long[cubes.length];
+        var length = 0;
+
+        for (int i = 0; i < cubes.length; i += 2) {
+            if (((value ? cubes[i + 1] : cubes[i]) & bit) != 0) {
+                continue;
+            }
+
+            result[length++] = cubes[i] & ~bit;
+            result[length++] = cubes[i + 1] & ~bit;
+        }
+
+        return normalize(result, length);
+    }
+
+    // the bits of the variables occurring in any of the cubes
+    public static long support(long[] cubes) {
+        var support = 0L;
+
+        for (var mask : cubes) {
+            support |= mask;
+        }
+
+        return support;
+    }
+
+    // an empty cube is satisfied by every input, and the sorted cubes have it first
+    public static boolean isTautology(long[] cubes) {
+        return cubes.length > 0 && (cubes[0] | cubes[1]) == 0;
+    }
+
+    // the cubes over the order rotated by the given distance (e.g., from ABC to BCA by 1)
+    public static long[] rotate(long[] cubes, int distance, int variableCount) {
+        var mask = variableCount == Long.SIZE ? -1L : (1L << variableCount) - 1;
+        var rotated = new long[cubes.length];
+
+        for (int i = 0; i < cubes.length; i++) {
+            rotated[i] = (cubes[i] >>> distance | cubes[i] << (variableCount - distance)) & mask;
+        }
+
+        return rotated;
+    }
+
+    // the cubes after a reordering, where the variable at level i comes from level permutation[i]
+    public static long[] permute(long[] cubes, int[] permutation) {
+        var permuted = new long[cubes.length];
+
+        for (int i = 0; i < cubes.length; i++) {
+            for (int level = 0; level < permutation.length; level++) {
+                permuted[i] |= (cubes[i] >>> permutation[level] & 1) << level;
+            }
+        }
+
+        return permuted;
+    }
+
+    // sorts and de-duplicates the first length entries, so that equal sets are equal arrays
+    public static long[] normalize(long[] cubes, int length) {
+        if (length > 2) {
+            sort(cubes, length);
+        }
+
+        var distinct = 0;
+
+        for (int i = 0; i < length; i += 2) {
+            if (distinct == 0 || cubes[distinct - 2] != cubes[i] || cubes[distinct - 1] != cubes[i + 1]) {
+                cubes[distinct++] = cubes[i];
+                cubes[distinct++] = cubes[i + 1];
+            }
+        }
+
+        return distinct == cubes.length ? cubes : Arrays.copyOf(cubes, distinct);
+    }
+
+    // orders the pairs by their unsigned (positive, negative) value, so the empty cube comes first
+    private static void sort(long[] cubes, int length) {
+        var support = 0L;
+
+        for (int i = 0; i < length; i++) {
+            support |= cubes[i];
+        }
+
+        // up to 32 variables, a pair is packed into a single key (flipping the sign bit makes the signed order unsigned)
+        if (support >>> Integer.SIZE == 0) {
+            var keys = new long[length / 2];
+
+            for (int i = 0; i < length; i += 2) {
+                keys[i / 2] = (cubes[i] << Integer.SIZE | cubes[i + 1]) ^ Long.MIN_VALUE;
+            }
+
+            Arrays.sort(keys);
+
+            for (int i = 0; i < keys.length; i++) {
+                var key = keys[i] ^ Long.MIN_VALUE;
+
+                cubes[2 * i] = key >>> Integer.SIZE;
+                cubes[2 * i + 1] = key & 0xFFFFFFFFL;
+            }
+
+            return;
+        }
+
+        var indices = new Integer[length / 2];
+
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = 2 * i;
+        }
+
+        Arrays.sort(indices, (i, j) -> cubes[i] != cubes[j]
+                ? Long.compareUnsigned(cubes[i], cubes[j])
+                : Long.compareUnsigned(cubes[i + 1], cubes[j + 1]));
+
+        var sorted = new long[length];
+
+        for (int i = 0; i < indices.length; i++) {
+            sorted[2 * i] = cubes[indices[i]];
+            sorted[2 * i + 1] = cubes[indices[i] + 1];
+        }
+
+        System.arraycopy(sorted, 0, cubes, 0, length);
+    }
+
+    // a cube whose literals all occur in another one makes the other redundant (e.g., A absorbs AB),
+    // and the order of the sorted cubes is kept
+    //
+    // the cubes are visited by their literal count, so only the smaller ones kept before can absorb a cube,
+    // and those are grouped by their first literal, which the absorbed cube must contain as well
+    private static long[] subsume(long[] cubes) {
+        var count = cubes.length / 2;
+
+        if (count < 2) {
+            return cubes;
+        }
+
+        // the empty cube absorbs everything else
+        if (isTautology(cubes)) {
+            return new long[2];
+        }
+
+        // a counting sort of the cubes by their literal count (up to 64 positive and 64 negative ones)
+        var offsets = new int[2 * Long.SIZE + 2];
+
+        for (int i = 0; i < cubes.length; i += 2) {
+            offsets[literals(cubes, i) + 1]++;
+        }
+
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+
+        var bySize = new int[count];
+
+        for (int i = 0; i < cubes.length; i += 2) {
+            bySize[offsets[literals(cubes, i)]++] = i;
+        }
+
+        var groups = new int[2 * Long.SIZE][];
+        var groupSizes = new int[2 * Long.SIZE];
+        var redundant = new boolean[count];
+        var length = cubes.length;
+
+        for (var i : bySize) {
+            var positive = cubes[i];
+            var negative = cubes[i + 1];
+
+            if (isAbsorbed(cubes, positive, negative, positive, 0, groups, groupSizes)
+                    || isAbsorbed(cubes, positive, negative, negative, Long.SIZE, groups, groupSizes)) {
+                redundant[i / 2] = true;
+                length -= 2;
+
+                continue;
+            }
+
+            var first = positive != 0 ? Long.numberOfTrailingZeros(positive) : Long.SIZE + Long.numberOfTrailingZeros(negative);
+
+            if (groups[first] == null) {
+                groups[first] = new int[4];
+            } else if (groupSizes[first] == groups[first].length) {
+                groups[first] = Arrays.copyOf(groups[first], 2 * groupSizes[first]);
+            }
+
+            groups[first][groupSizes[first]++] = i;
+        }
+
+        if (length == cubes.length) {
+            return cubes;
+        }
+
+        var result = new long[length];
+        var kept = 0;
+
+        for (int i = 0; i < cubes.length; i += 2) {
+            if (!redundant[i / 2]) {
+                result[kept++] = cubes[i];
+                result[kept++] = cubes[i + 1];
+            }
+        }
+
+        return result;
+    }
+
+    // whether a kept cube starting with one of the given literals (offset by 64 for the negative ones) absorbs the cube
+    private static boolean isAbsorbed(long[] cubes, long positive, long negative, long literals, int offset,
+                                      int[][] groups, int[] groupSizes) {
+        for (var rest = literals; rest != 0; rest &= rest - 1) {
+            var group = offset + Long.numberOfTrailingZeros(rest);
+
+            for (int k = 0; k < groupSizes[group]; k++) {
+                var j = groups[group][k];
+
+                if ((cubes[j] & ~positive) == 0 && (cubes[j + 1] & ~negative) == 0) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static int literals(long[] cubes, int i) {
+        return Long.bitCount(cubes[i]) + Long.bitCount(cubes[i + 1]);
+    }
+
+    private static int count(String function, char c) {
+        var count = 0;
+
+        for (int i = 0; i < function.length(); i++) {
+            if (function.charAt(i) == c) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    // a cube set as a hash key, e.g., for memoizing cofactors
+    record Key(long[] cubes) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && Arrays.equals(cubes, other.cubes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(cubes);
+        }
+    }
+}
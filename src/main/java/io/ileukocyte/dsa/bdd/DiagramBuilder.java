@@ -0,0 +1,221 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// an incremental DNF construction that ORs every clause into the current reduced diagram as soon as it arrives,
+// so the memory is bounded by the size of the diagram rather than the size of the text
+//
+// a clause is a conjunction of literals separated by whitespace, '&' or '*' (e.g., "x1 & !y"),
+// and for capital-letter orders the literals may also be written together (e.g., "A!BC")
+public class DiagramBuilder {
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1 << 16;
+
+    private static final int READ_BUFFER_SIZE = 1 << 13;
+
+    private final String[] variables;
+    private final Map<String, Integer> levels = new HashMap<>();
+    private final boolean letters;
+
+    private final ComputedCache cache;
+
+    private NodeTable table;
+    private int root = NodeTable.FALSE;
+    private long clauseCount = 0;
+
+    // the table is compacted whenever it grows past the threshold, which then doubles if most of the nodes stay reachable
+    private int compactionThreshold;
+
+    public DiagramBuilder(String order) {
+        this(order.chars().mapToObj(Character::toString).toList());
+    }
+
+    public DiagramBuilder(List<String> variables) {
+        this(variables, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public DiagramBuilder(List<String> variables, int compactionThreshold) {
+        this(variables, compactionThreshold, new ComputedCache());
+    }
+
+    // the cache may be shared with other constructions, which invalidate each other's entries when they alternate
+    public DiagramBuilder(List<String> variables, int compactionThreshold, ComputedCache cache) {
+        if (variables.isEmpty()) {
+            throw new IllegalArgumentException("At least one variable is required!");
+        }
+
+        if (compactionThreshold < 2) {
+            throw new IllegalArgumentException("The compaction threshold must be at least 2!");
+        }
+
+        this.variables = variables.toArray(String[]::new);
+        this.compactionThreshold = compactionThreshold;
+        this.cache = cache;
+
+        for (int level = 0; level < this.variables.length; level++) {
+            if (levels.put(this.variables[level], level) != null) {
+                throw new IllegalArgumentException("The order contains a duplicate variable: " + this.variables[level] + "!");
+            }
+        }
+
+        letters = variables.stream().allMatch(v -> v.length() == 1 && v.charAt(0) >= 'A' && v.charAt(0) <= 'Z');
+
+        table = new NodeTable(this.variables.length);
+        table.setCache(cache);
+    }
+
+    public DiagramBuilder addClause(String clause) {
+        var literals = new int[clause.length()];
+        var count = 0;
+
+        for (var token : clause.trim().split("[\\s&*]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+
+            if (letters) {
+                for (int i = 0; i < token.length(); i++) {
+                    var negated = token.charAt(i) == '!';
+
+                    if (negated) {
+                        i++;
+                    }
+
+                    literals[count++] = literal(i < token.length() ? token.substring(i, i + 1) : "", negated);
+                }
+            } else {
+                var negated = token.charAt(0) == '!' || token.charAt(0) == '~';
+
+                literals[count++] = literal(negated ? token.substring(1) : token, negated);
+            }
+        }
+
+        return addLiterals(count, literals);
+    }
+
+    // "!x" stands for the negated variable x
+    public DiagramBuilder addClause(List<String> literals) {
+        var encoded = new int[literals.size()];
+
+        for (int i = 0; i < encoded.length; i++) {
+            var literal = literals.get(i);
+            var negated = literal.startsWith("!");
+
+            encoded[i] = literal(negated ? literal.substring(1) : literal, negated);
+        }
+
+        return addLiterals(encoded.length, encoded);
+    }
+
+    public DiagramBuilder addClauses(Iterator<String> clauses) {
+        while (clauses.hasNext()) {
+            addClause(clauses.next());
+        }
+
+        return this;
+    }
+
+    // the clauses are separated by '+', '|' or line breaks, and only the current clause is ever held in memory
+    //
+    // the input is read in chunks (so an unbuffered reader is not called per character),
+    // and the text between two separators is appended to the clause at once
+    public DiagramBuilder addClauses(Reader input) throws IOException {
+        var buffer = new char[READ_BUFFER_SIZE];
+        var clause = new StringBuilder();
+
+        for (var read = input.read(buffer); read != -1; read = input.read(buffer)) {
+            var start = 0;
+
+            for (int i = 0; i < read; i++) {
+                var c = buffer[i];
+
+                if (c == '+' || c == '|' || c == '\n' || c == '\r') {
+                    clause.append(buffer, start, i - start);
+                    addPending(clause);
+
+                    start = i + 1;
+                }
+            }
+
+            clause.append(buffer, start, read - start);
+        }
+
+        addPending(clause);
+
+        return this;
+    }
+
+    public long getClauseCount() {
+        return clauseCount;
+    }
+
+    // the number of nodes of the diagram built so far (matching BinaryDecisionDiagram.size())
+    public int size() {
+        return NodeTable.isLeaf(root) ? 1 : table.countReachable(root);
+    }
+
+    // the number of nodes currently held by the construction table, including the unreachable ones
+    public int tableSize() {
+        return table.count();
+    }
+
+    public ComputedCache getCache() {
+        return cache;
+    }
+
+    public BinaryDecisionDiagram build() {
+        return BinaryDecisionDiagram.of(List.of(variables), table, root);
+    }
+
+    private void addPending(StringBuilder clause) {
+        if (!clause.toString().isBlank()) {
+            addClause(clause.toString());
+        }
+
+        clause.setLength(0);
+    }
+
+    private DiagramBuilder addLiterals(int count, int[] literals) {
+        if (count == 0) {
+            throw new IllegalArgumentException("A clause must contain at least one literal!");
+        }
+
+        clauseCount++;
+
+        // no clause can change a tautology
+        if (root == NodeTable.TRUE) {
+            return this;
+        }
+
+        root = table.or(root, table.cube(count == literals.length ? literals : Arrays.copyOf(literals, count)));
+
+        if (table.count() > compactionThreshold) {
+            table = table.compact(root);
+            root = NodeTable.isLeaf(root) ? root : table.count() - 1;
+
+            // the results cached for the previous table are dropped by its first operation
+            table.setCache(cache);
+
+            if (table.count() > compactionThreshold / 2) {
+                compactionThreshold = (int) Math.min(2L * compactionThreshold, Integer.MAX_VALUE);
+            }
+        }
+
+        return this;
+    }
+
+    private int literal(String variable, boolean negated) {
+        var level = levels.get(variable);
+
+        if (level == null) {
+            throw new IllegalArgumentException("The variable " + (variable.isEmpty() ? "after '!'" : variable) + " is missing from the order!");
+        }
+
+        return level << 1 | (negated ? 1 : 0);
+    }
+}
@@ -0,0 +1,289 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// many named functions over the same order kept as roots of one reduced table, so every subfunction
+// is stored once no matter how many of the functions share it
+//
+// the table only grows by importing (the children of every node are created before the node itself),
+// so the node ids are a topological order and a single sweep over them evaluates all the roots at once
+public class DiagramForest {
+    private final String[] variables;
+
+    private NodeTable table;
+
+    // memoizes the parsing of the added expressions
+    private final ComputedCache cache;
+
+    // the root of every function in the order of addition
+    private final Map<String, Integer> roots = new LinkedHashMap<>();
+
+    // the nodes left behind by the removed or replaced functions (an upper bound, since some may still be shared)
+    private int garbage = 0;
+
+    // the root ids in the order of getNames() and the node values of the last sweep, both rebuilt lazily
+    private int[] rootIds;
+    private boolean[] values;
+
+    public DiagramForest(String order) {
+        this(order.chars().mapToObj(Character::toString).toList());
+    }
+
+    public DiagramForest(List<String> variables) {
+        this(variables, new ComputedCache());
+    }
+
+    // e.g., the cache of a DiagramManager over the same variables
+    public DiagramForest(List<String> variables, ComputedCache cache) {
+        if (variables.isEmpty()) {
+            throw new IllegalArgumentException("At least one variable is required!");
+        }
+
+        this.variables = variables.toArray(String[]::new);
+
+        var distinct = new HashSet<String>();
+
+        for (var variable : this.variables) {
+            if (!distinct.add(variable)) {
+                throw new IllegalArgumentException("The order contains a duplicate variable: " + variable + "!");
+            }
+        }
+
+        this.cache = cache;
+
+        table = new NodeTable(this.variables.length);
+    }
+
+    public List<String> getVariables() {
+        return List.of(variables);
+    }
+
+    // the names of the functions in the order of addition, which is also the order of the evaluation results
+    public List<String> getNames() {
+        return new ArrayList<>(roots.keySet());
+    }
+
+    public boolean contains(String name) {
+        return roots.containsKey(name);
+    }
+
+    public int getFunctionCount() {
+        return roots.size();
+    }
+
+    // adds (or replaces) the function, reusing all of its subgraphs that are already present
+    public DiagramForest add(String name, BinaryDecisionDiagram bdd) {
+        if (!bdd.getVariables().equals(List.of(variables))) {
+            throw new IllegalArgumentException("The diagrams must have the same order!");
+        }
+
+        var previous = roots.put(name, table.importNode(bdd.getTable(), bdd.getRootId()));
+
+        if (previous != null) {
+            release(previous);
+        }
+
+        rootIds = null;
+
+        return this;
+    }
+
+    // an expression in the syntax of BinaryDecisionDiagram.parse() over the variables of the forest
+    public DiagramForest add(String name, String expression) {
+        return add(name, BinaryDecisionDiagram.parse(expression, List.of(variables), cache));
+    }
+
+    public DiagramForest remove(String name) {
+        var root = roots.remove(name);
+
+        if (root == null) {
+            throw new IllegalArgumentException("There is no function named " + name + "!");
+        }
+
+        release(root);
+
+        rootIds = null;
+
+        return this;
+    }
+
+    public BinaryDecisionDiagram get(String name) {
+        return BinaryDecisionDiagram.of(List.of(variables), table, rootOf(name));
+    }
+
+    // bit i of the input holds the value of the i-th variable of the order
+    public boolean use(String name, long input) {
+        requireLongInput();
+
+        var node = rootOf(name);
+
+        while (!NodeTable.isLeaf(node)) {
+            node = (input >>> table.level(node) & 1) == 0 ? table.low(node) : table.high(node);
+        }
+
+        return node == NodeTable.TRUE;
+    }
+
+    // evaluates every function in one bottom-up pass over the table, where bit i of the result belongs to the i-th name
+    public BitSet use(long input) {
+        requireLongInput();
+
+        var values = sweep();
+
+        for (int node = 2; node < table.count(); node++) {
+            values[node] = (input >>> table.level(node) & 1) == 0 ? values[table.low(node)] : values[table.high(node)];
+        }
+
+        return collect(values);
+    }
+
+    public BitSet use(BitSet input) {
+        var values = sweep();
+
+        for (int node = 2; node < table.count(); node++) {
+            values[node] = input.get(table.level(node)) ? values[table.high(node)] : values[table.low(node)];
+        }
+
+        return collect(values);
+    }
+
+    public Map<String, Boolean> use(Map<String, Boolean> input) {
+        var values = new BitSet(variables.length);
+
+        for (int level = 0; level < variables.length; level++) {
+            var value = input.get(variables[level]);
+
+            if (value == null) {
+                throw new IllegalArgumentException("The value of " + variables[level] + " is missing!");
+            }
+
+            values.set(level, value);
+        }
+
+        var results = use(values);
+        var named = new LinkedHashMap<String, Boolean>();
+        var index = 0;
+
+        for (var name : roots.keySet()) {
+            named.put(name, results.get(index++));
+        }
+
+        return named;
+    }
+
+    // the number of distinct nodes (including both leaves) held for all the functions together
+    public int size() {
+        var reachable = new boolean[table.count()];
+        var size = 2;
+
+        reachable[NodeTable.FALSE] = true;
+        reachable[NodeTable.TRUE] = true;
+
+        for (var root : roots.values()) {
+            reachable[root] = true;
+        }
+
+        // the parents always come after their children, so a single backward pass marks everything
+        for (int node = table.count() - 1; node >= 2; node--) {
+            if (reachable[node]) {
+                reachable[table.low(node)] = true;
+                reachable[table.high(node)] = true;
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    // the number of nodes the functions would take as separate diagrams
+    public long unsharedSize() {
+        var total = 0L;
+
+        for (var root : roots.values()) {
+            total += table.countReachable(root);
+        }
+
+        return total;
+    }
+
+    public long memoryFootprint() {
+        return table.memoryFootprint();
+    }
+
+    public ComputedCache getCache() {
+        return cache;
+    }
+
+    // rebuilds the table from the remaining roots, dropping the nodes that only the removed functions used
+    public void compact() {
+        var compacted = new NodeTable(variables.length, Math.max(table.count() - garbage, 2));
+        var mapping = new int[table.count()];
+
+        Arrays.fill(mapping, -1);
+
+        // a common mapping keeps the shared subgraphs shared
+        for (var entry : roots.entrySet()) {
+            entry.setValue(compacted.importNode(table, entry.getValue(), mapping));
+        }
+
+        table = compacted;
+        garbage = 0;
+        rootIds = null;
+        values = null;
+    }
+
+    private int rootOf(String name) {
+        var root = roots.get(name);
+
+        if (root == null) {
+            throw new IllegalArgumentException("There is no function named " + name + "!");
+        }
+
+        return root;
+    }
+
+    // the table is compacted once the dropped nodes might take up half of it
+    private void release(int root) {
+        garbage += NodeTable.isLeaf(root) ? 0 : table.countReachable(root) - 2;
+
+        if (2 * garbage > table.count()) {
+            compact();
+        }
+    }
+
+    private boolean[] sweep() {
+        if (values == null || values.length < table.count()) {
+            values = new boolean[table.count()];
+        }
+
+        values[NodeTable.TRUE] = true;
+
+        return values;
+    }
+
+    private BitSet collect(boolean[] values) {
+        if (rootIds == null) {
+            rootIds = roots.values().stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        var results = new BitSet(rootIds.length);
+
+        for (int i = 0; i < rootIds.length; i++) {
+            results.set(i, values[rootIds[i]]);
+        }
+
+        return results;
+    }
+
+    private void requireLongInput() {
+        if (variables.length > Long.SIZE) {
+            throw new IllegalStateException("A long input can only hold up to 64 variables!");
+        }
+    }
+}
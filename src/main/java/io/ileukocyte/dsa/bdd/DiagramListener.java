@@ -0,0 +1,7 @@
+package io.ileukocyte.dsa.bdd;
+
+// notified synchronously on the thread that completed the operation
+@FunctionalInterface
+public interface DiagramListener {
+    void onOperation(OperationMetrics metrics);
+}
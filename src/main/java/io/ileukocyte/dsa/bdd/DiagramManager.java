@@ -0,0 +1,305 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// a unique table shared by many diagrams over the same variables, so that combining them copies nothing
+//
+// every diagram is held through a Handle that counts as an external reference to its root until it is closed,
+// and once the table grows past a threshold, the nodes unreachable from the referenced roots are collected
+// before the next operation: their slots are reused and the cache entries referring to them are purged
+public class DiagramManager {
+    public static final int DEFAULT_GC_THRESHOLD = 1 << 16;
+
+    private final String[] variables;
+    private final Map<String, Integer> levels = new HashMap<>();
+
+    private final NodeTable table;
+
+    // the number of open handles per root node
+    private int[] references = new int[1 << 10];
+
+    // a collection runs once the number of live nodes exceeds the threshold, which doubles if most of them survive
+    private int gcThreshold;
+
+    private long collections = 0;
+    private long collectedNodes = 0;
+
+    public DiagramManager(String order) {
+        this(order.chars().mapToObj(Character::toString).toList());
+    }
+
+    public DiagramManager(List<String> variables) {
+        this(variables, DEFAULT_GC_THRESHOLD);
+    }
+
+    public DiagramManager(List<String> variables, int gcThreshold) {
+        this(variables, gcThreshold, new ComputedCache());
+    }
+
+    // a cache shared with other managers or constructions only holds the results of the table that used it last
+    public DiagramManager(List<String> variables, int gcThreshold, ComputedCache cache) {
+        if (gcThreshold < 2) {
+            throw new IllegalArgumentException("The garbage collection threshold must be at least 2!");
+        }
+
+        this.variables = variables.toArray(String[]::new);
+        this.gcThreshold = gcThreshold;
+
+        for (int level = 0; level < this.variables.length; level++) {
+            if (levels.put(this.variables[level], level) != null) {
+                throw new IllegalArgumentException("The order contains a duplicate variable: " + this.variables[level] + "!");
+            }
+        }
+
+        table = new NodeTable(this.variables.length);
+        table.setCache(cache);
+    }
+
+    public List<String> getVariables() {
+        return List.of(variables);
+    }
+
+    // the nodes currently in use, including the ones that are only waiting for the next collection
+    public int liveNodes() {
+        return table.liveCount();
+    }
+
+    public long getCollections() {
+        return collections;
+    }
+
+    public long getCollectedNodes() {
+        return collectedNodes;
+    }
+
+    public ComputedCache getCache() {
+        return table.getCache();
+    }
+
+    public Handle constant(boolean value) {
+        return handle(value ? NodeTable.TRUE : NodeTable.FALSE);
+    }
+
+    public Handle variable(String name) {
+        maybeCollect();
+
+        return handle(table.makeNode(levelOf(name), NodeTable.FALSE, NodeTable.TRUE));
+    }
+
+    // copies a standalone diagram with the same order into the shared table
+    public Handle add(BinaryDecisionDiagram bdd) {
+        if (!bdd.getVariables().equals(List.of(variables))) {
+            throw new IllegalArgumentException("The diagrams must have the same order!");
+        }
+
+        maybeCollect();
+
+        return handle(table.importNode(bdd.getTable(), bdd.getRootId()));
+    }
+
+    public Handle and(Handle first, Handle second) {
+        maybeCollect();
+
+        return handle(table.and(nodeOf(first), nodeOf(second)));
+    }
+
+    public Handle or(Handle first, Handle second) {
+        maybeCollect();
+
+        return handle(table.or(nodeOf(first), nodeOf(second)));
+    }
+
+    public Handle xor(Handle first, Handle second) {
+        maybeCollect();
+
+        return handle(table.xor(nodeOf(first), nodeOf(second)));
+    }
+
+    public Handle not(Handle handle) {
+        maybeCollect();
+
+        return handle(table.not(nodeOf(handle)));
+    }
+
+    public Handle ite(Handle condition, Handle thenBranch, Handle elseBranch) {
+        maybeCollect();
+
+        return handle(table.ite(nodeOf(condition), nodeOf(thenBranch), nodeOf(elseBranch)));
+    }
+
+    public Handle restrict(Handle handle, String variable, boolean value) {
+        maybeCollect();
+
+        return handle(table.restrict(nodeOf(handle), levelOf(variable), value));
+    }
+
+    public Handle exists(Handle handle, String... variables) {
+        maybeCollect();
+
+        return handle(table.exists(nodeOf(handle), cube(variables)));
+    }
+
+    public Handle forall(Handle handle, String... variables) {
+        maybeCollect();
+
+        return handle(table.forall(nodeOf(handle), cube(variables)));
+    }
+
+    public BinaryDecisionDiagram toDiagram(Handle handle) {
+        return BinaryDecisionDiagram.of(List.of(variables), table, nodeOf(handle));
+    }
+
+    // marks the nodes reachable from the referenced roots and frees all the others
+    public int collect() {
+        var live = new boolean[table.count()];
+        var stack = new int[table.count()];
+        var top = 0;
+
+        live[NodeTable.FALSE] = true;
+        live[NodeTable.TRUE] = true;
+
+        for (int node = 2; node < Math.min(references.length, live.length); node++) {
+            if (references[node] > 0 && !live[node]) {
+                live[node] = true;
+                stack[top++] = node;
+            }
+        }
+
+        while (top > 0) {
+            var node = stack[--top];
+            var low = table.low(node);
+            var high = table.high(node);
+
+            if (!live[low]) {
+                live[low] = true;
+                stack[top++] = low;
+            }
+
+            if (!live[high]) {
+                live[high] = true;
+                stack[top++] = high;
+            }
+        }
+
+        // the cache entries referring to the freed nodes would otherwise return their reused slots
+        table.getCache().purge(node -> node >= 2 && node < live.length && !live[node]);
+
+        var freed = table.collect(live);
+
+        collections++;
+        collectedNodes += freed;
+
+        return freed;
+    }
+
+    private void maybeCollect() {
+        if (table.liveCount() > gcThreshold) {
+            collect();
+
+            if (table.liveCount() > gcThreshold / 2) {
+                gcThreshold = (int) Math.min(2L * gcThreshold, Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    private Handle handle(int node) {
+        if (node >= references.length) {
+            references = Arrays.copyOf(references, Math.max(references.length << 1, node + 1));
+        }
+
+        references[node]++;
+
+        return new Handle(node);
+    }
+
+    private int nodeOf(Handle handle) {
+        if (handle.manager() != this) {
+            throw new IllegalArgumentException("The handle belongs to another manager!");
+        }
+
+        if (handle.closed) {
+            throw new IllegalStateException("The handle has already been closed!");
+        }
+
+        return handle.node;
+    }
+
+    private int levelOf(String variable) {
+        var level = levels.get(variable);
+
+        if (level == null) {
+            throw new IllegalArgumentException("The variable " + variable + " is missing from the order!");
+        }
+
+        return level;
+    }
+
+    private int cube(String[] variables) {
+        var literals = new int[variables.length];
+
+        for (int i = 0; i < variables.length; i++) {
+            literals[i] = levelOf(variables[i]) << 1;
+        }
+
+        return table.cube(literals);
+    }
+
+    // an external reference to a diagram of the manager, which must be closed once the diagram is no longer needed
+    public class Handle implements AutoCloseable {
+        private final int node;
+        private boolean closed = false;
+
+        private Handle(int node) {
+            this.node = node;
+        }
+
+        // bit i of the input holds the value of the i-th variable of the order
+        public boolean use(long input) {
+            if (variables.length > Long.SIZE) {
+                throw new IllegalStateException("A long input can only hold up to 64 variables!");
+            }
+
+            var current = nodeOf(this);
+
+            while (!NodeTable.isLeaf(current)) {
+                current = (input >>> table.level(current) & 1) == 0 ? table.low(current) : table.high(current);
+            }
+
+            return current == NodeTable.TRUE;
+        }
+
+        public int size() {
+            return table.countReachable(nodeOf(this));
+        }
+
+        public boolean isTautology() {
+            return nodeOf(this) == NodeTable.TRUE;
+        }
+
+        // handles of the same manager are equal if they refer to the same function
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Handle handle && handle.manager() == manager() && handle.node == node;
+        }
+
+        @Override
+        public int hashCode() {
+            return node;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                references[node]--;
+            }
+        }
+
+        private DiagramManager manager() {
+            return DiagramManager.this;
+        }
+    }
+}
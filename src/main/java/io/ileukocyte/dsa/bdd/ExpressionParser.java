@@ -0,0 +1,335 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+// a tokenized front end for general Boolean expressions over named variables, built directly with the table operations
+//
+// grammar (from the lowest precedence):
+// - expression = xor (('|' | '||' | '+' | OR) xor)*
+// - xor = conjunction (('^' | XOR) conjunction)*
+// - conjunction = unary (('&' | '&&' | '*' | AND) unary)*
+// - unary = ('!' | '~' | NOT) unary | '(' expression ')' | '0' | '1' | variable
+// - variable = a name of letters, digits, '_' and '.' not starting with a digit, optionally indexed (e.g., x[12])
+class ExpressionParser {
+    private final List<Token> tokens;
+    private final Map<String, Integer> levels = new HashMap<>();
+    private final NodeTable table;
+
+    private int position = 0;
+
+    private ExpressionParser(List<Token> tokens, List<String> order, ComputedCache cache) {
+        this.tokens = tokens;
+
+        for (int level = 0; level < order.size(); level++) {
+            if (levels.put(order.get(level), level) != null) {
+                throw new IllegalArgumentException("The order contains a duplicate variable: " + order.get(level) + "!");
+            }
+        }
+
+        table = new NodeTable(order.size());
+        table.setCache(cache);
+    }
+
+    public static BinaryDecisionDiagram parse(String expression) {
+        var tokens = tokenize(expression);
+        var order = new LinkedHashSet<String>();
+
+        // the variables are ordered by their first occurrence by default
+        for (var token : tokens) {
+            if (token.type() == TokenType.VARIABLE) {
+                order.add(token.text());
+            }
+        }
+
+        return parse(tokens, new ArrayList<>(order), new ComputedCache());
+    }
+
+    public static BinaryDecisionDiagram parse(String expression, List<String> order) {
+        return parse(tokenize(expression), order, new ComputedCache());
+    }
+
+    public static BinaryDecisionDiagram parse(String expression, List<String> order, ComputedCache cache) {
+        return parse(tokenize(expression), order, cache);
+    }
+
+    // DIMACS CNF, where the variable n is named x[n] and the variables are ordered by their indices
+    public static BinaryDecisionDiagram parseDimacs(Reader input) throws IOException {
+        var reader = new BufferedReader(input);
+        var clauses = new ArrayList<int[]>();
+        var clause = new ArrayList<Integer>();
+        var variableCount = -1;
+
+        for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+            line = line.trim();
+
+            // the SATLIB files end the formula with a '%' line followed by a stray 0, which is not an empty clause
+            if (line.startsWith("%")) {
+                break;
+            }
+
+            if (line.isEmpty() || line.startsWith("c")) {
+                continue;
+            }
+
+            if (line.startsWith("p")) {
+                var header = line.split("\\s+");
+
+                if (header.length != 4 || !header[1].equals("cnf")) {
+                    throw new IllegalArgumentException("The DIMACS header must be \"p cnf <variables> <clauses>\"!");
+                }
+
+                variableCount = Integer.parseInt(header[2]);
+
+                continue;
+            }
+
+            if (variableCount < 0) {
+                throw new IllegalArgumentException("The DIMACS header is missing!");
+            }
+
+            for (var literal : line.split("\\s+")) {
+                var value = Integer.parseInt(literal);
+
+                if (value == 0) {
+                    clauses.add(clause.stream().mapToInt(Integer::intValue).toArray());
+                    clause.clear();
+                } else if (Math.abs(value) > variableCount) {
+                    throw new IllegalArgumentException("The variable " + Math.abs(value) + " exceeds the declared count!");
+                } else {
+                    clause.add(value);
+                }
+            }
+        }
+
+        if (!clause.isEmpty()) {
+            clauses.add(clause.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        if (variableCount < 1) {
+            throw new IllegalArgumentException("The formula must contain at least one variable!");
+        }
+
+        var order = new ArrayList<String>();
+
+        for (int i = 1; i <= variableCount; i++) {
+            order.add("x[" + i + "]");
+        }
+
+        var recorder = OperationRecorder.start("parseDimacs", "build");
+        var table = new NodeTable(variableCount);
+        var result = NodeTable.TRUE;
+
+        for (var literals : clauses) {
+            // a clause is the negation of the cube of its negated literals
+            var negated = new int[literals.length];
+
+            for (int i = 0; i < literals.length; i++) {
+                negated[i] = (Math.abs(literals[i]) - 1) << 1 | (literals[i] > 0 ? 1 : 0);
+            }
+
+            result = table.and(result, table.not(table.cube(negated)));
+
+            if (result == NodeTable.FALSE) {
+                break;
+            }
+        }
+
+        recorder.phase("compact");
+
+        var bdd = BinaryDecisionDiagram.of(order, table, result);
+
+        recorder.finish(table, bdd);
+
+        return bdd;
+    }
+
+    private static BinaryDecisionDiagram parse(List<Token> tokens, List<String> order, ComputedCache cache) {
+        if (tokens.isEmpty()) {
+            throw new IllegalArgumentException("The provided expression must not be empty!");
+        }
+
+        var recorder = OperationRecorder.start("parse", "build");
+        var parser = new ExpressionParser(tokens, order, cache);
+        var result = parser.expression();
+
+        if (parser.position < tokens.size()) {
+            throw parser.unexpected();
+        }
+
+        recorder.phase("compact");
+
+        var bdd = BinaryDecisionDiagram.of(order, parser.table, result);
+
+        recorder.finish(parser.table, bdd);
+
+        return bdd;
+    }
+
+    private int expression() {
+        var result = xor();
+
+        while (accept(TokenType.OR)) {
+            result = table.or(result, xor());
+        }
+
+        return result;
+    }
+
+    private int xor() {
+        var result = conjunction();
+
+        while (accept(TokenType.XOR)) {
+            result = table.xor(result, conjunction());
+        }
+
+        return result;
+    }
+
+    private int conjunction() {
+        var result = unary();
+
+        while (accept(TokenType.AND)) {
+            result = table.and(result, unary());
+        }
+
+        return result;
+    }
+
+    private int unary() {
+        if (position == tokens.size()) {
+            throw new IllegalArgumentException("The expression ends unexpectedly!");
+        }
+
+        var token = tokens.get(position++);
+
+        return switch (token.type()) {
+            case NOT -> table.not(unary());
+            case OPEN -> {
+                var result = expression();
+
+                if (!accept(TokenType.CLOSE)) {
+                    throw new IllegalArgumentException("A closing parenthesis is missing at position " + token.position() + "!");
+                }
+
+                yield result;
+            }
+            case CONSTANT -> token.text().equals("1") ? NodeTable.TRUE : NodeTable.FALSE;
+            case VARIABLE -> {
+                var level = levels.get(token.text());
+
+                if (level == null) {
+                    throw new IllegalArgumentException("The variable " + token.text() + " is missing from the order!");
+                }
+
+                yield table.makeNode(level, NodeTable.FALSE, NodeTable.TRUE);
+            }
+            default -> {
+                position--;
+
+                throw unexpected();
+            }
+        };
+    }
+
+    private boolean accept(TokenType type) {
+        if (position < tokens.size() && tokens.get(position).type() == type) {
+            position++;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private IllegalArgumentException unexpected() {
+        var token = tokens.get(position);
+
+        return new IllegalArgumentException("Unexpected token \"" + token.text() + "\" at position " + token.position() + "!");
+    }
+
+    private static List<Token> tokenize(String expression) {
+        var tokens = new ArrayList<Token>();
+        var i = 0;
+
+        while (i < expression.length()) {
+            var c = expression.charAt(i);
+            var start = i;
+
+            if (Character.isWhitespace(c)) {
+                i++;
+
+                continue;
+            }
+
+            if (Character.isLetter(c) || c == '_') {
+                while (i < expression.length() && isNameCharacter(expression.charAt(i))) {
+                    i++;
+                }
+
+                // an optional index (e.g., x[12])
+                if (i < expression.length() && expression.charAt(i) == '[') {
+                    var end = expression.indexOf(']', i);
+
+                    if (end == -1) {
+                        throw new IllegalArgumentException("A closing bracket is missing at position " + i + "!");
+                    }
+
+                    i = end + 1;
+                }
+
+                var name = expression.substring(start, i);
+
+                var type = switch (name.toUpperCase()) {
+                    case "AND" -> TokenType.AND;
+                    case "OR" -> TokenType.OR;
+                    case "XOR" -> TokenType.XOR;
+                    case "NOT" -> TokenType.NOT;
+                    default -> TokenType.VARIABLE;
+                };
+
+                tokens.add(new Token(type, name, start));
+
+                continue;
+            }
+
+            var type = switch (c) {
+                case '!', '~' -> TokenType.NOT;
+                case '&', '*' -> TokenType.AND;
+                case '|', '+' -> TokenType.OR;
+                case '^' -> TokenType.XOR;
+                case '(' -> TokenType.OPEN;
+                case ')' -> TokenType.CLOSE;
+                case '0', '1' -> TokenType.CONSTANT;
+                default -> throw new IllegalArgumentException("Unexpected character '" + c + "' at position " + i + "!");
+            };
+
+            i++;
+
+            // the doubled forms (&& and ||)
+            if ((c == '&' || c == '|') && i < expression.length() && expression.charAt(i) == c) {
+                i++;
+            }
+
+            tokens.add(new Token(type, expression.substring(start, i), start));
+        }
+
+        return tokens;
+    }
+
+    private static boolean isNameCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+
+    private enum TokenType {
+        VARIABLE, CONSTANT, NOT, AND, OR, XOR, OPEN, CLOSE
+    }
+
+    private record Token(TokenType type, String text, int position) {}
+}
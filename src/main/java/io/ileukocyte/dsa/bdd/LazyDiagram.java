@@ -0,0 +1,181 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// a diagram of a DNF that is only expanded as far as the evaluations reach
+//
+// every pending node holds the clauses left after the decisions above it, and its cofactors are created
+// the first time an evaluation passes through it; the pending nodes are shared by their clause sets,
+// and a node enters the unique table (with both reductions) as soon as both of its children have
+public class LazyDiagram {
+    private final String[] variables;
+    private final NodeTable table;
+
+    // the pending nodes by their clause sets, so equal subproblems are expanded only once
+    private final Map<Cubes.Key, Pending> pending = new HashMap<>();
+
+    private final Pending falseLeaf = new Pending(NodeTable.FALSE);
+    private final Pending trueLeaf = new Pending(NodeTable.TRUE);
+
+    private final Pending root;
+
+    private int expanded = 0;
+
+    private BinaryDecisionDiagram materialized;
+
+    LazyDiagram(long[] cubes, String order) {
+        variables = order.chars().mapToObj(Character::toString).toArray(String[]::new);
+        table = new NodeTable(variables.length);
+        root = pendingOf(Cubes.normalize(cubes.clone(), cubes.length));
+    }
+
+    public List<String> getVariables() {
+        return List.of(variables);
+    }
+
+    public int getVariableCount() {
+        return variables.length;
+    }
+
+    // the number of pending nodes whose cofactors have been created so far
+    public int expandedNodes() {
+        return expanded;
+    }
+
+    public boolean isMaterialized() {
+        return root.id != -1;
+    }
+
+    public boolean use(String input) {
+        if (input.length() != variables.length || !input.matches("[01]*")) {
+            throw new IllegalArgumentException("The input does not match the required format!");
+        }
+
+        var values = 0L;
+
+        for (int level = 0; level < variables.length; level++) {
+            if (input.charAt(level) == '1') {
+                values |= 1L << level;
+            }
+        }
+
+        return use(values);
+    }
+
+    // bit i of the input holds the value of the i-th variable of the order
+    public boolean use(long input) {
+        var path = new ArrayList<Pending>();
+        var current = root;
+
+        while (current.leaf == -1) {
+            // the part below a node that is already in the table is walked there
+            if (current.id != -1) {
+                return walk(current.id, input);
+            }
+
+            expand(current);
+            path.add(current);
+
+            current = (input >>> current.level & 1) == 0 ? current.low : current.high;
+        }
+
+        // the nodes of the path may now have both children in the table
+        for (int i = path.size() - 1; i >= 0; i--) {
+            resolve(path.get(i));
+        }
+
+        return current.leaf == NodeTable.TRUE;
+    }
+
+    // expands everything that is still pending and returns the reduced diagram
+    public BinaryDecisionDiagram materialize() {
+        if (materialized == null) {
+            materialized = BinaryDecisionDiagram.of(List.of(variables), table, materialize(root));
+        }
+
+        return materialized;
+    }
+
+    // the size of the fully reduced diagram, which forces the materialization
+    public int size() {
+        return materialize().size();
+    }
+
+    private int materialize(Pending node) {
+        if (node.id == -1) {
+            expand(node);
+
+            node.id = table.makeNode(node.level, materialize(node.low), materialize(node.high));
+        }
+
+        return node.id;
+    }
+
+    private void expand(Pending node) {
+        if (node.low != null) {
+            return;
+        }
+
+        node.low = pendingOf(Cubes.cofactor(node.clauses, node.level, false));
+        node.high = pendingOf(Cubes.cofactor(node.clauses, node.level, true));
+
+        expanded++;
+    }
+
+    private void resolve(Pending node) {
+        if (node.id == -1 && node.low.id != -1 && node.high.id != -1) {
+            node.id = table.makeNode(node.level, node.low.id, node.high.id);
+        }
+    }
+
+    private boolean walk(int node, long input) {
+        while (!NodeTable.isLeaf(node)) {
+            node = (input >>> table.level(node) & 1) == 0 ? table.low(node) : table.high(node);
+        }
+
+        return node == NodeTable.TRUE;
+    }
+
+    private Pending pendingOf(long[] cubes) {
+        // no clause left means FALSE, while an emptied clause means TRUE (the cubes are sorted, so it comes first)
+        if (cubes.length == 0) {
+            return falseLeaf;
+        }
+
+        if (Cubes.isTautology(cubes)) {
+            return trueLeaf;
+        }
+
+        return pending.computeIfAbsent(new Cubes.Key(cubes), Pending::new);
+    }
+
+    private static class Pending {
+        // the topmost variable of the clauses, which the node tests
+        final int level;
+        final int leaf;
+
+        final long[] clauses;
+
+        Pending low;
+        Pending high;
+
+        // the id in the unique table once both children are there
+        int id = -1;
+
+        Pending(Cubes.Key key) {
+            clauses = key.cubes();
+            level = Long.numberOfTrailingZeros(Cubes.support(clauses));
+            leaf = -1;
+        }
+
+        Pending(int leaf) {
+            this.leaf = leaf;
+            clauses = null;
+            level = -1;
+            id = leaf;
+        }
+    }
+}
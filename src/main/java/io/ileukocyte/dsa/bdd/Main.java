@@ -1,5 +1,8 @@
 package io.ileukocyte.dsa.bdd;
 
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
 import java.util.LinkedHashMap;
 import java.util.TreeMap;
 
@@ -11,10 +14,16 @@ public class Main {
     public static final int MAX_VARIABLES = 20;
     public static final boolean USE_BEST_ORDER = true;
     public static final boolean SINGLE_TEST_OUTPUT = true;
+    public static final long SEED = 42;
+    public static final boolean PRINT_METRICS = false;
 
     public static final boolean RUN_SPECIAL_TESTS = false;
 
     public static void main(String[] args) {
+        if (PRINT_METRICS) {
+            BinaryDecisionDiagram.addListener(System.out::println);
+        }
+
         if (RUN_RANDOM_TESTS) {
             var successful = INDIVIDUAL_TESTS;
 
@@ -23,14 +32,21 @@ public class Main {
 
             var avgValues = new TreeMap<Integer, Tests.TestEntry>();
 
+            // per-thread allocation counters are a HotSpot extension, so the linked node size is skipped without them
+            var threads = ManagementFactory.getThreadMXBean() instanceof ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled() ? bean : null;
+            var generator = new WorkloadGenerator(SEED);
+
             for (int i = MIN_VARIABLES; i <= MAX_VARIABLES; i++) {
                 var reduction = 0.0;
 
                 long creationTime = 0;
                 long memoryUsed = 0;
+                long tableBytesPerNode = 0;
+                long linkedBytesPerNode = 0;
 
                 for (int j = 0; j < INDIVIDUAL_TESTS; j++) {
-                    var dnf = Tests.generateDnfExpression(i);
+                    var dnf = Tests.generateDnfExpression(i, generator);
 
                     System.gc();
 
@@ -45,29 +61,43 @@ public class Main {
 
                     creationTime += System.nanoTime() - now;
 
+                    tableBytesPerNode += bdd.memoryFootprint() / bdd.size();
+
+                    // the linked node representation is only created on demand, so it is measured separately
+                    if (threads != null) {
+                        var allocated = threads.getCurrentThreadAllocatedBytes();
+
+                        bdd.getRoot();
+
+                        linkedBytesPerNode += (threads.getCurrentThreadAllocatedBytes() - allocated) / bdd.size();
+                    }
+
                     if (SINGLE_TEST_OUTPUT) {
                         System.out.printf("(%d variables) %d. ", i, j + 1);
                     }
 
-                    if (!Tests.testBdd(bdd, SINGLE_TEST_OUTPUT)) {
+                    if (!Tests.testBdd(bdd, dnf, SINGLE_TEST_OUTPUT)) {
                         successful--;
                     }
 
                     totalTestCounter++;
-                    reduction += 1.0 - (double) bdd.size() / BinaryDecisionDiagram.fullNodeCount(i);
-                    totalReduction += 1.0 - (double) bdd.size() / BinaryDecisionDiagram.fullNodeCount(i);
+                    reduction += 1.0 - (double) bdd.size() / BinaryDecisionDiagram.fullNodeCount(i).doubleValue();
+                    totalReduction += 1.0 - (double) bdd.size() / BinaryDecisionDiagram.fullNodeCount(i).doubleValue();
                 }
 
                 var testEntry = new Tests.TestEntry(
                         (reduction / INDIVIDUAL_TESTS) * 100,
                         creationTime / INDIVIDUAL_TESTS,
-                        memoryUsed / INDIVIDUAL_TESTS
+                        memoryUsed / INDIVIDUAL_TESTS,
+                        tableBytesPerNode / INDIVIDUAL_TESTS,
+                        threads != null ? linkedBytesPerNode / INDIVIDUAL_TESTS : -1
                 );
 
                 System.out.printf("Testing (%d variables) has finished, the number of successful tests: %d/%d\n", i, successful, INDIVIDUAL_TESTS);
                 System.out.printf("Average reduction: %f%%\n", testEntry.reduction());
                 System.out.printf("Average creation time: %d ns\n", testEntry.creationTime());
                 System.out.printf("Average memory usage: %d kB\n", testEntry.memoryUsage());
+                System.out.printf("Average node size: %d B (primitive table), %s (linked nodes)\n", testEntry.tableBytesPerNode(), formatBytes(testEntry.linkedBytesPerNode()));
 
                 avgValues.put(i, testEntry);
 
@@ -80,7 +110,9 @@ public class Main {
             for (var entry : avgValues.entrySet()) {
                 var testEntry = entry.getValue();
 
-                System.out.printf("- %d variables: %f%%, %d ns, %d kB\n", entry.getKey(), testEntry.reduction(), testEntry.creationTime(), testEntry.memoryUsage());
+                System.out.printf("- %d variables: %f%%, %d ns, %d kB, %d B/node (table), %s/node (linked)\n",
+                        entry.getKey(), testEntry.reduction(), testEntry.creationTime(), testEntry.memoryUsage(),
+                        testEntry.tableBytesPerNode(), formatBytes(testEntry.linkedBytesPerNode()));
             }
 
             System.out.println("--------------------------------------------------");
@@ -103,8 +135,19 @@ public class Main {
 
                 System.out.printf("%s: %d nodes, tautology: %b\n", function.getKey(), bdd.size(), bdd.isTautology());
 
-                Tests.testBdd(bdd, SINGLE_TEST_OUTPUT);
+                Tests.testBdd(bdd, function.getKey(), SINGLE_TEST_OUTPUT);
             }
+
+            System.out.printf("DIMACS parsing: %s\n", Tests.testDimacs() ? "valid" : "invalid");
+            System.out.printf("DNF parsing: %s\n", Tests.testParsing() ? "valid" : "invalid");
+            System.out.printf("Garbage collection: %s\n", Tests.testCollection() ? "valid" : "invalid");
+            System.out.printf("Sifting: %s\n", Tests.testSifting() ? "valid" : "invalid");
+            System.out.printf("Forest: %s\n", Tests.testForest() ? "valid" : "invalid");
+            System.out.printf("ZDD conversion: %s\n", Tests.testZeroSuppressed() ? "valid" : "invalid");
         }
     }
-}
\ No newline at end of file
+
+    private static String formatBytes(long bytes) {
+        return bytes < 0 ? "n/a" : bytes + " B";
+    }
+}
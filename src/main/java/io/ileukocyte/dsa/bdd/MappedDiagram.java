@@ -0,0 +1,284 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+
+// a read-only diagram evaluated directly from a memory-mapped file
+//
+// file layout (big-endian):
+// - int magic ("BDD1"), int version, int variable count, int node count (including both leaves), int root
+// - the order as (int length, UTF-8 bytes) per variable name, padded to a multiple of 4 bytes
+// - (int level, int low, int high) for every non-leaf node, sorted by descending level
+//   so that the children of a node are always stored before it (the leaves 0 and 1 are implicit)
+public class MappedDiagram implements NodeStore {
+    public static final int MAGIC = 0x42444431;
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 20;
+    private static final int NODE_SIZE = 12;
+
+    private final ByteBuffer buffer;
+
+    private final String[] variables;
+    private final int variableCount;
+    private final int count;
+    private final int root;
+    private final int nodesOffset;
+
+    private MappedDiagram(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("The file is not a binary decision diagram!");
+        }
+
+        var version = buffer.getInt(4);
+
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported format version: " + version + "!");
+        }
+
+        this.buffer = buffer;
+
+        variableCount = buffer.getInt(8);
+        count = buffer.getInt(12);
+        root = buffer.getInt(16);
+
+        // every name takes at least its length
+        if (variableCount < 0 || variableCount > (buffer.capacity() - HEADER_SIZE) / 4) {
+            throw new IllegalArgumentException("The file is truncated or corrupted!");
+        }
+
+        variables = new String[variableCount];
+
+        var offset = (long) HEADER_SIZE;
+
+        for (int i = 0; i < variableCount; i++) {
+            var length = offset + 4 <= buffer.capacity() ? buffer.getInt((int) offset) : -1;
+
+            if (length < 0 || offset + 4 + length > buffer.capacity()) {
+                throw new IllegalArgumentException("The file is truncated or corrupted!");
+            }
+
+            var name = new byte[length];
+
+            buffer.get((int) offset + 4, name);
+            variables[i] = new String(name, StandardCharsets.UTF_8);
+            offset += 4 + length;
+        }
+
+        nodesOffset = (int) ((offset + 3) & ~3);
+
+        if (count < 2 || root < 0 || root >= count || buffer.capacity() < nodesOffset + (long) (count - 2) * NODE_SIZE) {
+            throw new IllegalArgumentException("The file is truncated or corrupted!");
+        }
+
+        // the evaluation relies on every edge going to an earlier node at a deeper level,
+        // which also rules out cycles and out-of-bounds ids
+        for (int node = 2; node < count; node++) {
+            var level = level(node);
+            var low = low(node);
+            var high = high(node);
+
+            if (level < 0 || level >= variableCount || low < 0 || low >= node || high < 0 || high >= node
+                    || level >= level(low) || level >= level(high)) {
+                throw new IllegalArgumentException("The file is corrupted: node " + node + " is not ordered above its children!");
+            }
+        }
+    }
+
+    public static MappedDiagram open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new MappedDiagram(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static void write(BinaryDecisionDiagram bdd, Path path) throws IOException {
+        var table = bdd.getTable();
+        var variables = bdd.getVariables();
+        var variableCount = variables.size();
+        var count = table.count();
+
+        // sorting the nodes by descending level (a counting sort, since the levels are bounded)
+        var starts = new int[variableCount + 1];
+
+        for (int node = 2; node < count; node++) {
+            starts[variableCount - 1 - table.level(node)]++;
+        }
+
+        for (int i = 0, position = 2; i <= variableCount; i++) {
+            var size = starts[i];
+
+            starts[i] = position;
+            position += size;
+        }
+
+        var ids = new int[count];
+
+        ids[NodeTable.FALSE] = NodeTable.FALSE;
+        ids[NodeTable.TRUE] = NodeTable.TRUE;
+
+        for (int node = 2; node < count; node++) {
+            ids[node] = starts[variableCount - 1 - table.level(node)]++;
+        }
+
+        var names = new byte[variableCount][];
+        var namesSize = 0L;
+
+        for (int level = 0; level < variableCount; level++) {
+            names[level] = variables.get(level).getBytes(StandardCharsets.UTF_8);
+            namesSize += 4 + names[level].length;
+        }
+
+        var nodesOffset = (HEADER_SIZE + namesSize + 3) & ~3;
+        var size = nodesOffset + (long) (count - 2) * NODE_SIZE;
+
+        // a single buffer (and a single mapping when reading) is limited to 2 GB
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The diagram is too large for the mapped file format (" + size + " bytes)!");
+        }
+
+        var buffer = ByteBuffer.allocate((int) size);
+
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(variableCount)
+                .putInt(count)
+                .putInt(ids[bdd.getRootId()]);
+
+        for (var name : names) {
+            buffer.putInt(name.length).put(name);
+        }
+
+        for (int node = 2; node < count; node++) {
+            var offset = (int) nodesOffset + (ids[node] - 2) * NODE_SIZE;
+
+            buffer.putInt(offset, table.level(node));
+            buffer.putInt(offset + 4, ids[table.low(node)]);
+            buffer.putInt(offset + 8, ids[table.high(node)]);
+        }
+
+        buffer.rewind();
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public List<String> getVariables() {
+        return List.of(variables);
+    }
+
+    // the concatenated variables, which is only defined if every variable is a single character
+    public String getOrder() {
+        var order = new StringBuilder(variableCount);
+
+        for (var variable : variables) {
+            if (variable.length() != 1) {
+                throw new IllegalStateException("The order of named variables is only available as a list!");
+            }
+
+            order.append(variable);
+        }
+
+        return order.toString();
+    }
+
+    public int getRoot() {
+        return root;
+    }
+
+    public int size() {
+        // both leaves are only unreachable from a constant root
+        return NodeTable.isLeaf(root) ? 1 : count;
+    }
+
+    public boolean isTautology() {
+        return root == NodeTable.TRUE;
+    }
+
+    // deserializes the file into a regular diagram
+    public BinaryDecisionDiagram toDiagram() {
+        return BinaryDecisionDiagram.of(List.of(variables), this, root);
+    }
+
+    @Override
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    @Override
+    public int count() {
+        return count;
+    }
+
+    @Override
+    public int level(int node) {
+        return NodeTable.isLeaf(node) ? variableCount : buffer.getInt(nodesOffset + (node - 2) * NODE_SIZE);
+    }
+
+    @Override
+    public int low(int node) {
+        return buffer.getInt(nodesOffset + (node - 2) * NODE_SIZE + 4);
+    }
+
+    @Override
+    public int high(int node) {
+        return buffer.getInt(nodesOffset + (node - 2) * NODE_SIZE + 8);
+    }
+
+    public boolean use(String input) {
+        if (input.length() != variableCount) {
+            throw new IllegalArgumentException("The input does not match the required format!");
+        }
+
+        for (int i = 0; i < input.length(); i++) {
+            if (input.charAt(i) != '0' && input.charAt(i) != '1') {
+                throw new IllegalArgumentException("The input does not match the required format!");
+            }
+        }
+
+        var node = root;
+
+        while (!NodeTable.isLeaf(node)) {
+            node = input.charAt(level(node)) == '0' ? low(node) : high(node);
+        }
+
+        return node == NodeTable.TRUE;
+    }
+
+    // bit i of the input holds the value of the i-th variable of the order
+    public boolean use(long input) {
+        if (variableCount > Long.SIZE) {
+            throw new IllegalStateException("A long input can only hold up to 64 variables!");
+        }
+
+        var node = root;
+
+        while (!NodeTable.isLeaf(node)) {
+            var offset = nodesOffset + (node - 2) * NODE_SIZE;
+
+            node = (input >>> buffer.getInt(offset) & 1) == 0 ? buffer.getInt(offset + 4) : buffer.getInt(offset + 8);
+        }
+
+        return node == NodeTable.TRUE;
+    }
+
+    // bit i of the input holds the value of the i-th variable of the order
+    public boolean use(BitSet input) {
+        var node = root;
+
+        while (!NodeTable.isLeaf(node)) {
+            node = input.get(level(node)) ? high(node) : low(node);
+        }
+
+        return node == NodeTable.TRUE;
+    }
+}
@@ -0,0 +1,49 @@
+package io.ileukocyte.dsa.bdd;
+
+// read access to (variable level, low id, high id) triples, where ids 0 and 1 are the leaves
+interface NodeStore {
+    int getVariableCount();
+
+    // the number of allocated ids (including the leaves)
+    int count();
+
+    int level(int node);
+
+    int low(int node);
+
+    int high(int node);
+
+    // the hash of a triple shared by the unique tables, which is left unmasked for their bucket counts
+    static int hash(int level, int low, int high) {
+        var hash = level * 0x9E3779B9 + low * 0x85EBCA6B + high * 0xC2B2AE35;
+
+        return hash ^ (hash >>> 16);
+    }
+
+    // a cube in the mask form of Cubes, where bit i stands for level i, built by the given unique table
+    static int cube(long positive, long negative, NodeMaker maker) {
+        if ((positive & negative) != 0) {
+            return NodeTable.FALSE;
+        }
+
+        var node = NodeTable.TRUE;
+        var remaining = positive | negative;
+
+        // from the deepest level up
+        while (remaining != 0) {
+            var level = Long.SIZE - 1 - Long.numberOfLeadingZeros(remaining);
+
+            node = (negative >>> level & 1) == 1
+                    ? maker.makeNode(level, node, NodeTable.FALSE)
+                    : maker.makeNode(level, NodeTable.FALSE, node);
+            remaining &= ~(1L << level);
+        }
+
+        return node;
+    }
+
+    @FunctionalInterface
+    interface NodeMaker {
+        int makeNode(int level, int low, int high);
+    }
+}
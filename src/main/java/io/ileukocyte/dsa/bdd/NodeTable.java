@@ -0,0 +1,934 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// a hash-consed unique table of (variable level, low id, high id) triples
+//
+// a zero-suppressed table stores ZDD nodes instead: a node is dropped when its high child is FALSE
+// rather than when both children are equal, and only the set operations (union, intersection and difference) apply
+class NodeTable implements NodeStore {
+    public static final int FALSE = 0;
+    public static final int TRUE = 1;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    // the ids by which a shared cache tells the tables apart
+    private static final AtomicLong TABLE_IDS = new AtomicLong();
+
+    // the level of a collected slot
+    private static final int FREE = -1;
+
+    private final int variableCount;
+    private final boolean zeroSuppressed;
+
+    private int[] levels;
+    private int[] lows;
+    private int[] highs;
+
+    // collision chains of the unique table
+    private int[] next;
+    private int[] buckets;
+
+    private int count;
+
+    // the slots of the collected nodes, chained through next and reused by makeNode
+    private int freeList = -1;
+    private int freeCount = 0;
+
+    // the number of non-leaf nodes at each level, kept up to date by every node creation and swap
+    private final int[] levelCounts;
+
+    // while the variables are being reordered, the nodes of every level (levelCounts[level] of them)
+    // and the reference counts of the nodes, where a node without references is dead but stays in the table
+    private int[][] levelNodes;
+    private int[] references;
+    private int liveNodes;
+
+    // construction counters reported to the operation listeners
+    private long createdNodes = 0;
+    private long reusedNodes = 0;
+    private long sReductions = 0;
+    private int peakNodes = 2;
+
+    private static final int AND = 0;
+    private static final int OR = 1;
+    private static final int XOR = 2;
+    private static final int NOT = 3;
+    private static final int ITE = 4;
+    private static final int RESTRICT = 5;
+    private static final int EXISTS = 6;
+    private static final int FORALL = 7;
+    private static final int UNION = 8;
+    private static final int INTERSECTION = 9;
+    private static final int DIFFERENCE = 10;
+
+    // memoized results of the Boolean operations, possibly shared with other tables
+    private ComputedCache cache;
+    private final long id = TABLE_IDS.getAndIncrement();
+
+    public NodeTable(int variableCount) {
+        this(variableCount, INITIAL_CAPACITY);
+    }
+
+    public NodeTable(int variableCount, int capacity) {
+        this(variableCount, capacity, false);
+    }
+
+    public NodeTable(int variableCount, int capacity, boolean zeroSuppressed) {
+        this(variableCount, capacity, zeroSuppressed, new ComputedCache());
+    }
+
+    public NodeTable(int variableCount, int capacity, boolean zeroSuppressed, ComputedCache cache) {
+        this.variableCount = variableCount;
+        this.zeroSuppressed = zeroSuppressed;
+        this.cache = cache;
+
+        capacity = Math.max(capacity, 2);
+
+        levels = new int[capacity];
+        lows = new int[capacity];
+        highs = new int[capacity];
+        next = new int[capacity];
+        buckets = new int[Integer.highestOneBit(capacity - 1) << 1];
+
+        Arrays.fill(buckets, -1);
+
+        // the leaves are placed below the last variable level
+        levels[FALSE] = variableCount;
+        levels[TRUE] = variableCount;
+
+        count = 2;
+        levelCounts = new int[variableCount];
+    }
+
+    @Override
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    @Override
+    public int count() {
+        return count;
+    }
+
+    public boolean isZeroSuppressed() {
+        return zeroSuppressed;
+    }
+
+    public ComputedCache getCache() {
+        return cache;
+    }
+
+    // the results cached for another table are invalidated by the first lookup (see ComputedCache.claim)
+    public void setCache(ComputedCache cache) {
+        this.cache = cache;
+    }
+
+    public int levelCount(int level) {
+        return levelCounts[level];
+    }
+
+    @Override
+    public int level(int node) {
+        return levels[node];
+    }
+
+    @Override
+    public int low(int node) {
+        return lows[node];
+    }
+
+    @Override
+    public int high(int node) {
+        return highs[node];
+    }
+
+    // the exact heap size of the node arrays (excluding the operation cache)
+    public long memoryFootprint() {
+        var arrayHeader = 16L;
+
+        return 5 * arrayHeader + 4L * (levels.length + lows.length + highs.length + next.length + buckets.length);
+    }
+
+    public static boolean isLeaf(int node) {
+        return node == FALSE || node == TRUE;
+    }
+
+    public int makeNode(int level, int low, int high) {
+        // S-reduction (or zero-suppression)
+        if (zeroSuppressed ? high == FALSE : low == high) {
+            sReductions++;
+
+            return low;
+        }
+
+        // I-reduction
+        var bucket = NodeStore.hash(level, low, high) & (buckets.length - 1);
+
+        for (int node = buckets[bucket]; node != -1; node = next[node]) {
+            if (levels[node] == level && lows[node] == low && highs[node] == high) {
+                reusedNodes++;
+
+                return node;
+            }
+        }
+
+        int node;
+
+        if (freeList != -1) {
+            node = freeList;
+            freeList = next[node];
+            freeCount--;
+        } else {
+            if (count == levels.length) {
+                grow();
+
+                bucket = NodeStore.hash(level, low, high) & (buckets.length - 1);
+            }
+
+            node = count++;
+        }
+
+        levelCounts[level]++;
+
+        if (levelNodes != null) {
+            track(level, node);
+        }
+
+        levels[node] = level;
+        lows[node] = low;
+        highs[node] = high;
+        next[node] = buckets[bucket];
+        buckets[bucket] = node;
+
+        createdNodes++;
+        peakNodes = Math.max(peakNodes, count - freeCount);
+
+        return node;
+    }
+
+    public long getCreatedNodes() {
+        return createdNodes;
+    }
+
+    public long getReusedNodes() {
+        return reusedNodes;
+    }
+
+    public long getSReductions() {
+        return sReductions;
+    }
+
+    // the largest number of nodes in use at once (including both leaves)
+    public int getPeakNodes() {
+        return peakNodes;
+    }
+
+    // the number of nodes in use (including both leaves), which is lower than count() once some slots are free
+    public int liveCount() {
+        return count - freeCount;
+    }
+
+    public boolean isFree(int node) {
+        return node >= 2 && node < count && levels[node] == FREE;
+    }
+
+    // frees every non-leaf node that is not marked as live, so that its slot can be reused
+    // (the caller must make sure that no live node refers to a freed one and that the cache holds no freed ids)
+    public int collect(boolean[] live) {
+        var freed = 0;
+
+        for (int node = 2; node < count; node++) {
+            if (!live[node] && levels[node] != FREE) {
+                unlink(node);
+
+                levelCounts[levels[node]]--;
+                levels[node] = FREE;
+                next[node] = freeList;
+                freeList = node;
+                freeCount++;
+                freed++;
+            }
+        }
+
+        return freed;
+    }
+
+    public int importNode(NodeStore source, int node) {
+        var mapping = new int[source.count()];
+
+        Arrays.fill(mapping, -1);
+
+        return importNode(source, node, mapping);
+    }
+
+    // copies the subgraph of a node from another store with the same variable levels
+    public int importNode(NodeStore source, int node, int[] mapping) {
+        if (isLeaf(node)) {
+            return node;
+        }
+
+        // every step goes at least one level down, so the path never exceeds the number of variables
+        var path = new int[source.getVariableCount() + 1];
+        var top = 0;
+
+        path[top++] = node;
+
+        while (top > 0) {
+            var current = path[top - 1];
+
+            if (mapping[current] != -1) {
+                top--;
+
+                continue;
+            }
+
+            var low = source.low(current);
+            var high = source.high(current);
+
+            if (!isLeaf(low) && mapping[low] == -1) {
+                path[top++] = low;
+            } else if (!isLeaf(high) && mapping[high] == -1) {
+                path[top++] = high;
+            } else {
+                mapping[current] = makeNode(source.level(current), isLeaf(low) ? low : mapping[low], isLeaf(high) ? high : mapping[high]);
+
+                top--;
+            }
+        }
+
+        return mapping[node];
+    }
+
+    // a copy containing only the nodes reachable from the root, whose id is always the last one
+    public NodeTable compact(int root) {
+        var table = new NodeTable(variableCount, count, zeroSuppressed);
+
+        table.importNode(this, root);
+        table.trim();
+
+        return table;
+    }
+
+    // the number of nodes (including leaves) reachable from the root
+    public int countReachable(int root) {
+        if (isLeaf(root)) {
+            return 1;
+        }
+
+        var visited = new boolean[count];
+        var stack = new int[count];
+        var size = 0;
+        var top = 0;
+
+        stack[top++] = root;
+        visited[root] = true;
+
+        while (top > 0) {
+            var node = stack[--top];
+
+            size++;
+
+            if (!isLeaf(node)) {
+                if (!visited[lows[node]]) {
+                    visited[lows[node]] = true;
+                    stack[top++] = lows[node];
+                }
+
+                if (!visited[highs[node]]) {
+                    visited[highs[node]] = true;
+                    stack[top++] = highs[node];
+                }
+            }
+        }
+
+        return size;
+    }
+
+    // indexes the nodes by level and counts the references from the root, so that the swaps only touch
+    // the two levels involved and the size of the diagram follows them (no node may be collected meanwhile)
+    public void startReordering(int root) {
+        levelNodes = new int[variableCount][];
+        references = new int[levels.length];
+        liveNodes = 0;
+
+        for (int level = 0; level < variableCount; level++) {
+            levelNodes[level] = new int[Math.max(levelCounts[level], 4)];
+        }
+
+        Arrays.fill(levelCounts, 0);
+
+        for (int node = 2; node < count; node++) {
+            if (levels[node] != FREE) {
+                levelCounts[levels[node]]++;
+                track(levels[node], node);
+            }
+        }
+
+        reference(root);
+    }
+
+    public void stopReordering() {
+        levelNodes = null;
+        references = null;
+    }
+
+    // the number of nodes (including leaves) reachable from the root of the reordering
+    public int reachableCount() {
+        if (references == null) {
+            throw new IllegalStateException("The reordering has not been started!");
+        }
+
+        // a non-leaf root always reaches both leaves
+        return liveNodes == 0 ? 1 : liveNodes + 2;
+    }
+
+    // exchanges the variables of a level and the level below it in place,
+    // so every existing node id still stands for the same function afterwards
+    public void swap(int level) {
+        if (levelNodes == null) {
+            throw new IllegalStateException("The reordering has not been started!");
+        }
+
+        var lower = level + 1;
+
+        var upperNodes = levelNodes[level];
+        var lowerNodes = levelNodes[lower];
+        var upperCount = levelCounts[level];
+        var lowerCount = levelCounts[lower];
+
+        // the unlinked nodes must not be rehashed by a resize while they are being rewritten
+        if (count + 2 * upperCount > levels.length) {
+            resize(Integer.highestOneBit(count + 2 * upperCount) << 1);
+        }
+
+        // the cofactors by both variables have to be read before any node is relabeled
+        var cofactors = new int[upperCount * 4];
+        var dependent = new boolean[upperCount];
+
+        for (int i = 0; i < upperCount; i++) {
+            var node = upperNodes[i];
+
+            unlink(node);
+
+            var low = lows[node];
+            var high = highs[node];
+
+            dependent[i] = levels[low] == lower || levels[high] == lower;
+
+            cofactors[4 * i] = levels[low] == lower ? lows[low] : low;
+            cofactors[4 * i + 1] = levels[low] == lower ? highs[low] : low;
+            cofactors[4 * i + 2] = levels[high] == lower ? lows[high] : high;
+            cofactors[4 * i + 3] = levels[high] == lower ? highs[high] : high;
+        }
+
+        // the nodes of the lower variable move up unchanged, taking their list along
+        for (int i = 0; i < lowerCount; i++) {
+            var node = lowerNodes[i];
+
+            unlink(node);
+
+            levels[node] = level;
+
+            link(node);
+        }
+
+        levelNodes[level] = lowerNodes;
+        levelCounts[level] = lowerCount;
+        levelNodes[lower] = new int[Math.max(upperCount, 4)];
+        levelCounts[lower] = 0;
+
+        // the nodes not depending on the lower variable simply move down
+        for (int i = 0; i < upperCount; i++) {
+            var node = upperNodes[i];
+
+            if (!dependent[i]) {
+                levels[node] = lower;
+
+                link(node);
+
+                levelCounts[lower]++;
+                track(lower, node);
+            }
+        }
+
+        // the rest is rewritten as (lower variable, (upper variable, f00, f10), (upper variable, f01, f11))
+        for (int i = 0; i < upperCount; i++) {
+            if (!dependent[i]) {
+                continue;
+            }
+
+            var node = upperNodes[i];
+            var low = makeNode(lower, cofactors[4 * i], cofactors[4 * i + 2]);
+            var high = makeNode(lower, cofactors[4 * i + 1], cofactors[4 * i + 3]);
+
+            // a live node hands its references over to the new children (before the old ones may die)
+            if (references[node] > 0) {
+                reference(low);
+                reference(high);
+                dereference(lows[node]);
+                dereference(highs[node]);
+            }
+
+            levels[node] = level;
+            lows[node] = low;
+            highs[node] = high;
+
+            link(node);
+
+            levelCounts[level]++;
+            track(level, node);
+        }
+    }
+
+    // the last of the levelCounts[level] nodes of the level
+    private void track(int level, int node) {
+        var nodes = levelNodes[level];
+
+        if (levelCounts[level] > nodes.length) {
+            levelNodes[level] = nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+        }
+
+        nodes[levelCounts[level] - 1] = node;
+    }
+
+    // a dead node holds no references, so reviving it references its children as well
+    private void reference(int node) {
+        if (!isLeaf(node) && references[node]++ == 0) {
+            liveNodes++;
+
+            reference(lows[node]);
+            reference(highs[node]);
+        }
+    }
+
+    private void dereference(int node) {
+        if (!isLeaf(node) && --references[node] == 0) {
+            liveNodes--;
+
+            dereference(lows[node]);
+            dereference(highs[node]);
+        }
+    }
+
+    // a literal is encoded as (level << 1) | negated
+    public int cube(int... literals) {
+        var sorted = literals.clone();
+
+        Arrays.sort(sorted);
+
+        var node = TRUE;
+
+        // building the conjunction bottom-up so that every node is created once
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            var level = sorted[i] >> 1;
+            var negated = (sorted[i] & 1) == 1;
+
+            if (i < sorted.length - 1 && sorted[i + 1] >> 1 == level) {
+                // a contradiction (e.g., A!A)
+                if (sorted[i + 1] != sorted[i]) {
+                    return FALSE;
+                }
+
+                continue;
+            }
+
+            node = negated ? makeNode(level, node, FALSE) : makeNode(level, FALSE, node);
+        }
+
+        return node;
+    }
+
+    // a cube in the mask form of Cubes, where bit i stands for level i
+    public int cube(long positive, long negative) {
+        return NodeStore.cube(positive, negative, this::makeNode);
+    }
+
+    public int and(int f, int g) {
+        if (f == FALSE || g == FALSE) {
+            return FALSE;
+        }
+
+        if (f == TRUE || f == g) {
+            return g;
+        }
+
+        if (g == TRUE) {
+            return f;
+        }
+
+        return apply(AND, f, g);
+    }
+
+    public int or(int f, int g) {
+        if (f == TRUE || g == TRUE) {
+            return TRUE;
+        }
+
+        if (f == FALSE || f == g) {
+            return g;
+        }
+
+        if (g == FALSE) {
+            return f;
+        }
+
+        return apply(OR, f, g);
+    }
+
+    public int xor(int f, int g) {
+        if (f == g) {
+            return FALSE;
+        }
+
+        if (f == FALSE) {
+            return g;
+        }
+
+        if (g == FALSE) {
+            return f;
+        }
+
+        if (f == TRUE) {
+            return not(g);
+        }
+
+        if (g == TRUE) {
+            return not(f);
+        }
+
+        return apply(XOR, f, g);
+    }
+
+    public int not(int f) {
+        if (isLeaf(f)) {
+            return f == TRUE ? FALSE : TRUE;
+        }
+
+        var cached = lookup(NOT, f, 0, 0);
+
+        if (cached != ComputedCache.MISS) {
+            return cached;
+        }
+
+        var level = levels[f];
+        var f0 = lows[f];
+        var f1 = highs[f];
+
+        var low = not(f0);
+        var high = not(f1);
+        var result = makeNode(level, low, high);
+
+        cache.insert(NOT, f, 0, 0, result);
+
+        return result;
+    }
+
+    // if f then g else h
+    public int ite(int f, int g, int h) {
+        if (f == TRUE || g == h) {
+            return g;
+        }
+
+        if (f == FALSE) {
+            return h;
+        }
+
+        if (g == TRUE && h == FALSE) {
+            return f;
+        }
+
+        if (g == FALSE && h == TRUE) {
+            return not(f);
+        }
+
+        var cached = lookup(ITE, f, g, h);
+
+        if (cached != ComputedCache.MISS) {
+            return cached;
+        }
+
+        var level = Math.min(levels[f], Math.min(levels[g], levels[h]));
+
+        var f0 = levels[f] == level ? lows[f] : f;
+        var f1 = levels[f] == level ? highs[f] : f;
+        var g0 = levels[g] == level ? lows[g] : g;
+        var g1 = levels[g] == level ? highs[g] : g;
+        var h0 = levels[h] == level ? lows[h] : h;
+        var h1 = levels[h] == level ? highs[h] : h;
+
+        var low = ite(f0, g0, h0);
+        var high = ite(f1, g1, h1);
+        var result = makeNode(level, low, high);
+
+        cache.insert(ITE, f, g, h, result);
+
+        return result;
+    }
+
+    // the cofactor of f with the variable at the given level fixed to the value
+    public int restrict(int f, int level, boolean value) {
+        // f does not depend on the variables above its own level
+        if (levels[f] > level) {
+            return f;
+        }
+
+        if (levels[f] == level) {
+            return value ? highs[f] : lows[f];
+        }
+
+        var cached = lookup(RESTRICT, f, level, value ? 1 : 0);
+
+        if (cached != ComputedCache.MISS) {
+            return cached;
+        }
+
+        var nodeLevel = levels[f];
+        var f0 = lows[f];
+        var f1 = highs[f];
+
+        var low = restrict(f0, level, value);
+        var high = restrict(f1, level, value);
+        var result = makeNode(nodeLevel, low, high);
+
+        cache.insert(RESTRICT, f, level, value ? 1 : 0, result);
+
+        return result;
+    }
+
+    // f with g substituted for the variable at the given level
+    public int compose(int f, int level, int g) {
+        return ite(g, restrict(f, level, true), restrict(f, level, false));
+    }
+
+    // the variables to quantify are passed as a cube of positive literals (e.g., cube(2, 6) for the levels 1 and 3)
+    public int exists(int f, int variables) {
+        return quantify(EXISTS, f, variables);
+    }
+
+    public int forall(int f, int variables) {
+        return quantify(FORALL, f, variables);
+    }
+
+    private int quantify(int operator, int f, int variables) {
+        // skipping the quantified variables above f, which it does not depend on
+        while (!isLeaf(variables) && levels[variables] < levels[f]) {
+            variables = highs[variables];
+        }
+
+        if (isLeaf(f) || variables == TRUE) {
+            return f;
+        }
+
+        var cached = lookup(operator, f, variables, 0);
+
+        if (cached != ComputedCache.MISS) {
+            return cached;
+        }
+
+        var level = levels[f];
+        var f0 = lows[f];
+        var f1 = highs[f];
+
+        int result;
+
+        if (levels[variables] == level) {
+            var low = quantify(operator, f0, highs[variables]);
+            var high = quantify(operator, f1, highs[variables]);
+
+            result = operator == EXISTS ? or(low, high) : and(low, high);
+        } else {
+            var low = quantify(operator, f0, variables);
+            var high = quantify(operator, f1, variables);
+
+            result = makeNode(level, low, high);
+        }
+
+        cache.insert(operator, f, variables, 0, result);
+
+        return result;
+    }
+
+    // the combinations in f or g (of a zero-suppressed table)
+    public int union(int f, int g) {
+        if (f == FALSE || f == g) {
+            return g;
+        }
+
+        if (g == FALSE) {
+            return f;
+        }
+
+        return setApply(UNION, f, g);
+    }
+
+    // the combinations in both f and g (of a zero-suppressed table)
+    public int intersection(int f, int g) {
+        if (f == FALSE || g == FALSE) {
+            return FALSE;
+        }
+
+        if (f == g) {
+            return f;
+        }
+
+        return setApply(INTERSECTION, f, g);
+    }
+
+    // the combinations in f but not in g (of a zero-suppressed table)
+    public int difference(int f, int g) {
+        if (f == FALSE || f == g) {
+            return FALSE;
+        }
+
+        if (g == FALSE) {
+            return f;
+        }
+
+        return setApply(DIFFERENCE, f, g);
+    }
+
+    // a variable skipped by a ZDD node is 0 in all of its combinations,
+    // so an operand whose top level is lower only contributes through its low child
+    private int setApply(int operator, int f, int g) {
+        if (!zeroSuppressed) {
+            throw new IllegalStateException("The set operations are only defined for zero-suppressed tables!");
+        }
+
+        // the difference is the only operation that is not commutative
+        if (operator != DIFFERENCE && f > g) {
+            var temp = f;
+
+            f = g;
+            g = temp;
+        }
+
+        var cached = lookup(operator, f, g, 0);
+
+        if (cached != ComputedCache.MISS) {
+            return cached;
+        }
+
+        var level = Math.min(levels[f], levels[g]);
+        var f0 = levels[f] == level ? lows[f] : f;
+        var f1 = levels[f] == level ? highs[f] : FALSE;
+        var g0 = levels[g] == level ? lows[g] : g;
+        var g1 = levels[g] == level ? highs[g] : FALSE;
+
+        var result = makeNode(level, setDispatch(operator, f0, g0), setDispatch(operator, f1, g1));
+
+        cache.insert(operator, f, g, 0, result);
+
+        return result;
+    }
+
+    private int setDispatch(int operator, int f, int g) {
+        return switch (operator) {
+            case UNION -> union(f, g);
+            case INTERSECTION -> intersection(f, g);
+            case DIFFERENCE -> difference(f, g);
+            default -> throw new IllegalArgumentException("Unexpected operator: " + operator);
+        };
+    }
+
+    // the terminal cases are handled by the callers, so both operands are non-leaf nodes
+    private int apply(int operator, int f, int g) {
+        // all the binary operators are commutative, so both argument orders share a cache entry
+        if (f > g) {
+            var temp = f;
+
+            f = g;
+            g = temp;
+        }
+
+        var cached = lookup(operator, f, g, 0);
+
+        if (cached != ComputedCache.MISS) {
+            return cached;
+        }
+
+        var level = Math.min(levels[f], levels[g]);
+
+        var f0 = levels[f] == level ? lows[f] : f;
+        var f1 = levels[f] == level ? highs[f] : f;
+        var g0 = levels[g] == level ? lows[g] : g;
+        var g1 = levels[g] == level ? highs[g] : g;
+
+        var low = dispatch(operator, f0, g0);
+        var high = dispatch(operator, f1, g1);
+        var result = makeNode(level, low, high);
+
+        cache.insert(operator, f, g, 0, result);
+
+        return result;
+    }
+
+    private int dispatch(int operator, int f, int g) {
+        return switch (operator) {
+            case AND -> and(f, g);
+            case OR -> or(f, g);
+            case XOR -> xor(f, g);
+            default -> throw new IllegalArgumentException("Unexpected operator: " + operator);
+        };
+    }
+
+    private int lookup(int operator, int f, int g, int h) {
+        cache.claim(id);
+
+        return cache.lookup(operator, f, g, h);
+    }
+
+    private void link(int node) {
+        var bucket = NodeStore.hash(levels[node], lows[node], highs[node]) & (buckets.length - 1);
+
+        next[node] = buckets[bucket];
+        buckets[bucket] = node;
+    }
+
+    private void unlink(int node) {
+        var bucket = NodeStore.hash(levels[node], lows[node], highs[node]) & (buckets.length - 1);
+
+        if (buckets[bucket] == node) {
+            buckets[bucket] = next[node];
+        } else {
+            var previous = buckets[bucket];
+
+            while (next[previous] != node) {
+                previous = next[previous];
+            }
+
+            next[previous] = next[node];
+        }
+    }
+
+    private void trim() {
+        resize(count);
+    }
+
+    private void grow() {
+        resize(levels.length << 1);
+    }
+
+    private void resize(int capacity) {
+        levels = Arrays.copyOf(levels, capacity);
+        lows = Arrays.copyOf(lows, capacity);
+        highs = Arrays.copyOf(highs, capacity);
+        next = Arrays.copyOf(next, capacity);
+
+        if (references != null) {
+            references = Arrays.copyOf(references, capacity);
+        }
+
+        // rehashing the non-leaf nodes into a bucket array matching the new capacity
+        buckets = new int[Integer.highestOneBit(capacity - 1) << 1];
+
+        Arrays.fill(buckets, -1);
+
+        for (int node = 2; node < count; node++) {
+            if (levels[node] != FREE) {
+                link(node);
+            }
+        }
+    }
+}
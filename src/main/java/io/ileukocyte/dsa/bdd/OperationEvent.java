@@ -0,0 +1,41 @@
+package io.ileukocyte.dsa.bdd;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.ileukocyte.dsa.bdd.Operation")
+@Label("BDD Operation")
+@Category("Binary Decision Diagrams")
+@Description("A diagram construction, Boolean operation or reordering")
+class OperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Variables")
+    int variableCount;
+
+    @Label("Created Nodes")
+    long createdNodes;
+
+    @Label("Reused Nodes")
+    @Description("Nodes found in the unique table (I-reductions)")
+    long reusedNodes;
+
+    @Label("S-Reductions")
+    long sReductions;
+
+    @Label("Peak Nodes")
+    int peakNodes;
+
+    @Label("Size")
+    int size;
+
+    @Label("Cache Hits")
+    long cacheHits;
+
+    @Label("Cache Misses")
+    long cacheMisses;
+}
@@ -0,0 +1,25 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.util.Map;
+
+// what a single diagram operation did (e.g., "create", "and" or "sift")
+//
+// - createdNodes, reusedNodes and sReductions count the makeNode calls of the construction tables
+//   that allocated a node, found an existing one (I-reduction) or returned a child (S-reduction)
+// - peakNodes is the largest construction table, while size and levelSizes describe the result
+// - phaseNanos holds the time spent in every phase in the order the phases started
+public record OperationMetrics(String operation, int variableCount,
+                               long createdNodes, long reusedNodes, long sReductions, int peakNodes,
+                               int size, int[] levelSizes,
+                               long cacheHits, long cacheMisses,
+                               Map<String, Long> phaseNanos, long totalNanos) {
+    public double cacheHitRate() {
+        return cacheHits + cacheMisses == 0 ? 0 : (double) cacheHits / (cacheHits + cacheMisses);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d nodes (%d created, %d reused, %d S-reductions, peak %d), cache hit rate %.2f%%, %d ns %s",
+                operation, size, createdNodes, reusedNodes, sReductions, peakNodes, cacheHitRate() * 100, totalNanos, phaseNanos);
+    }
+}
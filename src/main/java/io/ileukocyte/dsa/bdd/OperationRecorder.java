@@ -0,0 +1,170 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// collects the metrics of one operation for the listeners and the flight recorder,
+// and does nothing beyond a single check if neither of them is interested
+class OperationRecorder {
+    private static final List<DiagramListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private final String operation;
+    private final OperationEvent event;
+    private final boolean enabled;
+    private final long start;
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private String phase;
+    private long phaseStart;
+    private PhaseEvent phaseEvent;
+
+    private long createdNodes = 0;
+    private long reusedNodes = 0;
+    private long sReductions = 0;
+    private int peakNodes = 0;
+
+    // the table counted last and its counters at that moment, since a table may be counted again later
+    private NodeTable counted;
+    private long countedCreated;
+    private long countedReused;
+    private long countedReductions;
+
+    private ComputedCache cache;
+    private long cacheHits;
+    private long cacheMisses;
+
+    private OperationRecorder(String operation, String phase) {
+        this.operation = operation;
+
+        event = new OperationEvent();
+        enabled = !LISTENERS.isEmpty() || event.isEnabled();
+        start = System.nanoTime();
+
+        if (enabled) {
+            event.begin();
+            phase(phase);
+        }
+    }
+
+    public static void addListener(DiagramListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(DiagramListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    public static OperationRecorder start(String operation, String phase) {
+        return new OperationRecorder(operation, phase);
+    }
+
+    // ends the current phase and starts the next one (the time of repeated phases adds up)
+    public void phase(String name) {
+        if (!enabled) {
+            return;
+        }
+
+        var now = System.nanoTime();
+
+        endPhase(now);
+
+        phase = name;
+        phaseStart = now;
+        phaseEvent = new PhaseEvent();
+        phaseEvent.begin();
+    }
+
+    // only the cache lookups made from now on are counted
+    public void track(ComputedCache cache) {
+        if (enabled) {
+            this.cache = cache;
+
+            cacheHits = cache.getHits();
+            cacheMisses = cache.getMisses();
+        }
+    }
+
+    // adds the counters of a construction table that is about to be replaced
+    public void count(NodeTable table) {
+        if (!enabled) {
+            return;
+        }
+
+        if (table != counted) {
+            counted = table;
+            countedCreated = 0;
+            countedReused = 0;
+            countedReductions = 0;
+        }
+
+        createdNodes += table.getCreatedNodes() - countedCreated;
+        reusedNodes += table.getReusedNodes() - countedReused;
+        sReductions += table.getSReductions() - countedReductions;
+        peakNodes = Math.max(peakNodes, table.getPeakNodes());
+
+        countedCreated = table.getCreatedNodes();
+        countedReused = table.getReusedNodes();
+        countedReductions = table.getSReductions();
+    }
+
+    public void finish(NodeTable construction, BinaryDecisionDiagram result) {
+        if (!enabled) {
+            return;
+        }
+
+        count(construction);
+
+        var now = System.nanoTime();
+
+        endPhase(now);
+
+        if (cache == null) {
+            track(construction.getCache());
+
+            cacheHits = 0;
+            cacheMisses = 0;
+        }
+
+        var metrics = new OperationMetrics(operation, result.getVariableCount(),
+                createdNodes, reusedNodes, sReductions, peakNodes,
+                result.size(), result.getLevelSizes(),
+                cache.getHits() - cacheHits, cache.getMisses() - cacheMisses,
+                Collections.unmodifiableMap(phases), now - start);
+
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.variableCount = metrics.variableCount();
+            event.createdNodes = createdNodes;
+            event.reusedNodes = reusedNodes;
+            event.sReductions = sReductions;
+            event.peakNodes = peakNodes;
+            event.size = metrics.size();
+            event.cacheHits = metrics.cacheHits();
+            event.cacheMisses = metrics.cacheMisses();
+            event.commit();
+        }
+
+        for (var listener : LISTENERS) {
+            listener.onOperation(metrics);
+        }
+    }
+
+    private void endPhase(long now) {
+        if (phase == null) {
+            return;
+        }
+
+        phases.merge(phase, now - phaseStart, Long::sum);
+
+        if (phaseEvent.shouldCommit()) {
+            phaseEvent.operation = operation;
+            phaseEvent.phase = phase;
+            phaseEvent.commit();
+        }
+
+        phase = null;
+    }
+}
@@ -0,0 +1,17 @@
+package io.ileukocyte.dsa.bdd;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.ileukocyte.dsa.bdd.Phase")
+@Label("BDD Operation Phase")
+@Category("Binary Decision Diagrams")
+class PhaseEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Phase")
+    String phase;
+}
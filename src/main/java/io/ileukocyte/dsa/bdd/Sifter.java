@@ -0,0 +1,119 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+// Rudell's sifting: every variable is moved through all the levels by adjacent swaps
+// and is then placed at the level where the diagram was the smallest
+class Sifter {
+    // a direction is abandoned once the diagram grows by more than 20% over the best size
+    private static final double MAX_GROWTH = 1.2;
+
+    private NodeTable table;
+    private int root;
+
+    // the index of the variable (in the original order) placed at each level
+    private final int[] variables;
+
+    public Sifter(NodeTable table, int root) {
+        this.table = table;
+        this.root = root;
+
+        variables = IntStream.range(0, table.getVariableCount()).toArray();
+    }
+
+    public NodeTable getTable() {
+        return table;
+    }
+
+    public int getRoot() {
+        return root;
+    }
+
+    public int[] getVariables() {
+        return variables;
+    }
+
+    public void sift() {
+        var variableCount = table.getVariableCount();
+
+        if (variableCount < 2 || NodeTable.isLeaf(root)) {
+            return;
+        }
+
+        // the variables with the most nodes are sifted first
+        var siftingOrder = IntStream.range(0, variableCount)
+                .boxed()
+                .sorted(Comparator.comparingInt((Integer level) -> table.levelCount(level)).reversed())
+                .mapToInt(level -> variables[level])
+                .toArray();
+
+        for (var variable : siftingOrder) {
+            table.startReordering(root);
+
+            siftVariable(levelOf(variable));
+
+            // dropping the nodes that have become unreachable during the swaps
+            var compacted = table.compact(root);
+
+            root = NodeTable.isLeaf(root) ? root : compacted.count() - 1;
+            table = compacted;
+        }
+    }
+
+    private void siftVariable(int level) {
+        var variableCount = table.getVariableCount();
+
+        var size = table.reachableCount();
+        var bestSize = size;
+        var bestLevel = level;
+
+        // moving down to the last level
+        while (level < variableCount - 1 && size <= bestSize * MAX_GROWTH) {
+            swap(level++);
+
+            size = table.reachableCount();
+
+            if (size < bestSize) {
+                bestSize = size;
+                bestLevel = level;
+            }
+        }
+
+        // moving up to the first level
+        while (level > 0 && (level > bestLevel || size <= bestSize * MAX_GROWTH)) {
+            swap(--level);
+
+            size = table.reachableCount();
+
+            if (size < bestSize) {
+                bestSize = size;
+                bestLevel = level;
+            }
+        }
+
+        // returning to the best level found
+        while (level < bestLevel) {
+            swap(level++);
+        }
+    }
+
+    private void swap(int level) {
+        table.swap(level);
+
+        var variable = variables[level];
+
+        variables[level] = variables[level + 1];
+        variables[level + 1] = variable;
+    }
+
+    private int levelOf(int variable) {
+        for (int level = 0; level < variables.length; level++) {
+            if (variables[level] == variable) {
+                return level;
+            }
+        }
+
+        throw new IllegalStateException("Unexpected variable: " + variable);
+    }
+}
@@ -0,0 +1,89 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+// runs a fixed, seeded suite of workloads and writes one CSV row per case
+// usage: StressRunner [output file] [seed]
+public class StressRunner {
+    public static final int SEEDS_PER_PROFILE = 5;
+    public static final int[] VARIABLE_COUNTS = { 13, 16, 20, 23, 26 };
+
+    public static void main(String[] args) throws IOException {
+        var output = Path.of(args.length > 0 ? args[0] : "stress.csv");
+        var seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+        try (var writer = new PrintWriter(Files.newBufferedWriter(output))) {
+            writer.println("workload,variables,clauses,seed,creation_ns,nodes,sifting_ns,sifted_nodes,level_sizes");
+
+            for (var variableCount : VARIABLE_COUNTS) {
+                for (int i = 0; i < SEEDS_PER_PROFILE; i++) {
+                    var caseSeed = seed + i;
+
+                    runDnf(writer, "uniform", variableCount, 60, caseSeed,
+                            WorkloadGenerator.ClauseLength.uniform(1, variableCount), Tests.NEGATION_RATE);
+                    runDnf(writer, "short", variableCount, 2 * variableCount, caseSeed,
+                            WorkloadGenerator.ClauseLength.uniform(2, 4), 0.5);
+                    runDnf(writer, "3-dnf", variableCount, 4 * variableCount, caseSeed,
+                            WorkloadGenerator.ClauseLength.fixed(3), 0.5);
+                }
+            }
+
+            for (int n = 8; n <= 16; n += 4) {
+                var variableCount = n;
+
+                run(writer, "hwb", variableCount, 0, 0, () -> WorkloadGenerator.hiddenWeightedBit(variableCount));
+            }
+
+            for (int width = 4; width <= 8; width += 2) {
+                var w = width;
+
+                run(writer, "multiplier", 2 * w, 0, 0, () -> WorkloadGenerator.multiplierBit(w, w - 1));
+            }
+
+            for (int n = 4; n <= 5; n++) {
+                var board = n;
+
+                run(writer, "queens", board * board, 0, 0, () -> WorkloadGenerator.queens(board));
+            }
+        }
+
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+
+    private static void runDnf(PrintWriter writer, String workload, int variableCount, int clausesCount, long seed,
+                               WorkloadGenerator.ClauseLength clauseLength, double negationRate) {
+        var function = new WorkloadGenerator(seed).generateDnf(variableCount, clausesCount, clauseLength, negationRate);
+
+        run(writer, workload, variableCount, clausesCount, seed, () -> BinaryDecisionDiagram.create(function));
+    }
+
+    private static void run(PrintWriter writer, String workload, int variableCount, int clausesCount, long seed,
+                            Supplier<BinaryDecisionDiagram> creator) {
+        var now = System.nanoTime();
+        var bdd = creator.get();
+        var creationTime = System.nanoTime() - now;
+        var nodes = bdd.size();
+
+        now = System.nanoTime();
+        bdd.sift();
+
+        var siftingTime = System.nanoTime() - now;
+
+        var levelSizes = new StringBuilder();
+
+        for (var size : bdd.getLevelSizes()) {
+            levelSizes.append(levelSizes.isEmpty() ? "" : " ").append(size);
+        }
+
+        writer.printf(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%d,%d,%s%n",
+                workload, variableCount, clausesCount, seed, creationTime, nodes, siftingTime, bdd.size(), levelSizes);
+        writer.flush();
+
+        System.out.printf("%s (%d variables): %d -> %d nodes%n", workload, variableCount, nodes, bdd.size());
+    }
+}
@@ -1,141 +1,346 @@
 package io.ileukocyte.dsa.bdd;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Random;
-import java.util.stream.Collectors;
 
 public class Tests {
     public static final int MIN_CLAUSES = 15;
     public static final int MAX_CLAUSES = 60;
+    public static final double NEGATION_RATE = 0.15;
     public static final String CAPITAL_LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
 
-    public static boolean testBdd(BinaryDecisionDiagram bdd, boolean singleTestOutput) {
-        var successful = true;
+    // the diagram is checked against the DNF it was created from, not against its own (simplified) function
+    public static boolean testBdd(BinaryDecisionDiagram bdd, String function, boolean singleTestOutput) {
+        var variableCount = bdd.getOrder().length();
+        var total = 1L << variableCount;
 
-        var total = (int) Math.pow(2, bdd.getOrder().length());
-        var wrongValues = 0;
+        // every assignment is checked, but 64 of them at once against the DNF compiled into bit masks
+        var wrongValues = Verifier.countMismatches(bdd, function, assignment -> {
+            var values = new char[variableCount];
 
-        for (int i = 0; i < total; i++) {
-            var zeros = new char[bdd.getOrder().length()];
-            var binary = Integer.toBinaryString(i);
+            for (int i = 0; i < variableCount; i++) {
+                values[i] = (assignment >>> i & 1) == 0 ? '0' : '1';
+            }
 
-            Arrays.fill(zeros, '0');
+            var bddResult = bdd.use(assignment);
 
-            var values = new String(zeros).substring(binary.length()) + binary;
-            var parseResult = Tests.parseFunction(bdd.getFunction(), values, bdd.getOrder());
+            System.out.printf("%s. BDD: %b, actual: %b\n", new String(values), bddResult, !bddResult);
+        });
 
-            try {
-                var bddResult = bdd.use(values);
+        if (singleTestOutput) {
+            System.out.printf("Done! Valid values: %d/%d\n", total - wrongValues, total);
+        }
 
-                if (bddResult != parseResult) {
-                    System.out.printf("%s. BDD: %b, actual: %b\n", values, bddResult, parseResult);
+        return wrongValues == 0;
+    }
 
-                    wrongValues++;
+    // (x1 | x2) & (!x1 | x3) has 4 models over 3 variables, with or without the SATLIB trailer
+    public static boolean testDimacs() {
+        var formula = "c an example\np cnf 3 2\n1 2 0\n-1 3 0\n";
+        var valid = true;
 
-                    successful = false;
+        for (var input : new String[] { formula, formula + "%\n0\n" }) {
+            try {
+                var count = BinaryDecisionDiagram.parseDimacs(new StringReader(input)).satCount();
+
+                if (count.intValue() != 4) {
+                    System.out.printf("DIMACS: %d models instead of 4\n", count);
+
+                    valid = false;
                 }
-            } catch (IllegalStateException e) {
-                System.out.printf("IllegalStateException for %s: (%s)\n", values, parseResult);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
 
-                e.printStackTrace();
+        return valid;
+    }
+
+    // a trailing '+' is ignored, while an empty clause or a double negation is rejected (instead of becoming a tautology)
+    public static boolean testParsing() {
+        var valid = true;
+
+        for (var function : new String[] { "AB + ", "AB+" }) {
+            var bdd = BinaryDecisionDiagram.create(function, "AB");
 
-                return false;
+            if (bdd.size() != 4 || !Verifier.verify(bdd, "AB")) {
+                System.out.printf("Parsing: %s is not AB\n", function);
+
+                valid = false;
             }
         }
 
-        if (singleTestOutput) {
-            System.out.printf("Done! Valid values: %d/%d\n", total - wrongValues, total);
+        for (var function : new String[] { "+A", "A++B", "AB + + C", "A!!B", "!!A + B" }) {
+            try {
+                BinaryDecisionDiagram.create(function);
+
+                System.out.printf("Parsing: %s has been accepted\n", function);
+
+                valid = false;
+            } catch (IllegalArgumentException ignored) {
+                // expected
+            }
         }
 
-        return successful;
+        return valid;
     }
 
-    public static String generateDnfExpression(int variableCount) {
-        var random = new Random();
+    // a closed handle's nodes are freed and their slots reused, while the cache entries referring to them are purged,
+    // so neither the surviving handles nor the results computed over the reused slots can be affected
+    public static boolean testCollection() {
+        var order = "ABCDEF";
+        var functions = new String[] { "AB!C + !ADE + CF + B!EF", "A!BD + !CE!F + BCDF + !D", "!A!B + CDE + A!F + BE!D" };
+        var expected = BinaryDecisionDiagram.create(functions[0], order);
+        var manager = new DiagramManager(order);
+        var valid = true;
 
-        var clausesCount = random.ints(1, MIN_CLAUSES, MAX_CLAUSES + 1)
-                .findFirst()
-                .orElseThrow();
+        var kept = manager.add(expected);
+        var closed = manager.add(BinaryDecisionDiagram.create(functions[1], order));
+        var combined = manager.or(kept, closed);
 
-        var clauses = new ArrayList<String>();
+        // the cached result of the restriction is freed, while its operand survives
+        var restricted = manager.restrict(kept, "E", true);
 
-        var letters = new ArrayList<>(CAPITAL_LETTERS.chars().mapToObj(i -> (char) i).toList());
+        // the hash code of a handle is the id of its root, which is the newest node of its diagram
+        var lastId = Math.max(Math.max(closed.hashCode(), combined.hashCode()), restricted.hashCode());
 
-        Collections.shuffle(letters);
+        closed.close();
+        combined.close();
+        restricted.close();
 
-        var variables = letters.stream().limit(variableCount).toList();
+        var live = manager.liveNodes();
+        var freed = manager.collect();
 
-        for (int i = 0; i < clausesCount; i++) {
-            var variablesToTake = random.ints(1, 1, variableCount + 1)
-                    .findFirst()
-                    .orElseThrow();
+        if (freed == 0 || manager.getCollectedNodes() != freed || manager.liveNodes() != live - freed
+                || manager.liveNodes() != kept.size()) {
+            System.out.printf("Collection: %d of %d nodes freed, %d left for %d reachable ones\n",
+                    freed, live, manager.liveNodes(), kept.size());
 
-            var temp = new ArrayList<>(variables);
+            valid = false;
+        }
+
+        // the freed slots are taken by other functions before the restriction is repeated
+        try (var first = manager.add(BinaryDecisionDiagram.create(functions[2], order))) {
+            if (manager.liveNodes() <= live && first.hashCode() > lastId) {
+                System.out.printf("Collection: node %d has been allocated instead of a freed slot\n", first.hashCode());
 
-            Collections.shuffle(temp);
+                valid = false;
+            }
 
-            // 15% is the probability of whether a variable within a clause will be negated
-            // but only if a clause doesn't already contain a non-inverted variable to prevent a contradiction
-            clauses.add(letters.stream()
-                    .limit(variablesToTake)
-                    .map(v -> (Math.random() <= 0.15 && !clauses.contains(String.valueOf(v)) ? "!" : "") + v)
-                    .collect(Collectors.joining("")));
+            try (var second = manager.add(BinaryDecisionDiagram.create(functions[1], order));
+                 var union = manager.or(first, second);
+                 var intersection = manager.and(kept, first);
+                 var restrictedAgain = manager.restrict(kept, "E", true)) {
+                valid &= check("Collection (restriction)", manager.toDiagram(restrictedAgain), expected.restrict("E", true));
+                valid &= check("Collection (union)", manager.toDiagram(union), functions[2] + " + " + functions[1]);
+                valid &= check("Collection (intersection)", manager.toDiagram(intersection),
+                        expected.and(BinaryDecisionDiagram.create(functions[2], order)));
+            }
         }
 
-        var result = String.join(" + ", clauses.stream().distinct().toList());
-        var resultVariableCount = result.chars()
-                .mapToObj(i -> (char) i)
-                .distinct()
-                .filter(c -> c >= 'A' && c <= 'Z')
-                .count();
+        valid &= check("Collection (kept)", manager.toDiagram(kept), functions[0]);
+
+        for (long input = 0; input < 1L << order.length(); input++) {
+            if (kept.use(input) != expected.use(input)) {
+                System.out.printf("Collection: the kept handle is wrong for %d\n", input);
 
-        // in case the result contains fewer variables than expected
-        return resultVariableCount < variableCount ? generateDnfExpression(variableCount) : result;
+                valid = false;
+            }
+        }
+
+        return valid;
     }
 
-    // used for getting a boolean value directly from a function input
-    public static boolean parseFunction(String function, String values, String order) {
-        if (function.isEmpty() || values.isEmpty() || order.isEmpty()) {
-            throw new IllegalArgumentException("No argument must be empty!");
+    // sifting must never change the function and never grow the diagram,
+    // and AD + BE + CF over ABCDEF has to be brought down from 16 nodes to the 8 of an interleaved order
+    public static boolean testSifting() {
+        var generator = new WorkloadGenerator(7);
+        var functions = new LinkedHashMap<String, String>();
+
+        functions.put("AD + BE + CF", "ABCDEF");
+
+        for (int i = 0; i < 5; i++) {
+            var function = generateDnfExpression(10 + i, generator);
+
+            functions.put(function, String.join("", BinaryDecisionDiagram.Node.getDnfVariablesOrdered(function, true, true)));
         }
 
-        if (function.matches("[01]+")) {
-            return BinaryDecisionDiagram.Node.parseDigits(function).equals("1");
+        var valid = true;
+
+        for (var entry : functions.entrySet()) {
+            var bdd = BinaryDecisionDiagram.create(entry.getKey(), entry.getValue());
+            var size = bdd.size();
+
+            bdd.sift();
+
+            if (bdd.size() > size) {
+                System.out.printf("Sifting: %d nodes instead of %d over %s\n", bdd.size(), size, bdd.getOrder());
+
+                valid = false;
+            }
+
+            valid &= check("Sifting (" + bdd.getOrder() + ")", bdd, entry.getKey());
         }
 
-        if (!function.matches("[!A-Z+\\s]+")) {
-            throw new IllegalArgumentException("The provided format is not correct! DNF (e.g., ABC + A!B!C) should be used instead!");
+        var interleaved = BinaryDecisionDiagram.create("AD + BE + CF", "ABCDEF");
+
+        interleaved.sift();
+
+        if (interleaved.size() != 8) {
+            System.out.printf("Sifting: AD + BE + CF has %d nodes over %s\n", interleaved.size(), interleaved.getOrder());
+
+            valid = false;
         }
 
-        var functionVariables = String.join("", BinaryDecisionDiagram.Node.getDnfVariablesOrdered(function, true, true));
-        var orderVariables = String.join("", BinaryDecisionDiagram.Node.getDnfVariablesOrdered(order, false, false));
+        return valid;
+    }
 
-        if (!functionVariables.equals(orderVariables)) {
-            throw new IllegalArgumentException("The function and order provided do not correspond to each other!");
+    // the functions of a forest must survive the removal of another one, the compaction and their own replacement,
+    // and a compacted forest must hold no more nodes than one that has never seen the removed function
+    public static boolean testForest() {
+        var order = "ABCDEF";
+        var functions = new String[] { "AB!C + !ADE + CF + B!EF", "A!BD + !CE!F + BCDF + !D", "!A!B + CDE + A!F + BE!D" };
+        var forest = new DiagramForest(order)
+                .add("f", BinaryDecisionDiagram.create(functions[0], order))
+                .add("g", BinaryDecisionDiagram.create(functions[1], order))
+                .add("h", "!A & !B | C & D & E | A & !F | B & E & !D");
+        var valid = true;
+
+        if (forest.size() > forest.unsharedSize()) {
+            System.out.printf("Forest: %d shared nodes for %d unshared ones\n", forest.size(), forest.unsharedSize());
+
+            valid = false;
         }
 
-        if (!values.matches("[01]+") || values.length() != functionVariables.length()) {
-            throw new IllegalArgumentException("The input does not match the required format!");
+        forest.remove("g");
+        forest.compact();
+
+        var fresh = new DiagramForest(order)
+                .add("f", BinaryDecisionDiagram.create(functions[0], order))
+                .add("h", BinaryDecisionDiagram.create(functions[2], order));
+
+        if (forest.contains("g") || forest.getFunctionCount() != 2 || forest.size() != fresh.size()) {
+            System.out.printf("Forest: %s with %d nodes instead of [f, h] with %d\n", forest.getNames(), forest.size(), fresh.size());
+
+            valid = false;
+        }
+
+        valid &= check("Forest (f)", forest.get("f"), functions[0]);
+        valid &= check("Forest (h)", forest.get("h"), functions[2]);
+
+        forest.add("f", BinaryDecisionDiagram.create(functions[1], order));
+
+        valid &= check("Forest (replaced f)", forest.get("f"), functions[1]);
+        valid &= check("Forest (h)", forest.get("h"), functions[2]);
+
+        // the single sweep must agree with the diagrams of the functions
+        var first = forest.get("f");
+        var second = forest.get("h");
+
+        for (long input = 0; input < 1L << order.length(); input++) {
+            var results = forest.use(input);
+
+            if (results.get(0) != first.use(input) || results.get(1) != second.use(input)) {
+                System.out.printf("Forest: the sweep is wrong for %d\n", input);
+
+                valid = false;
+            }
         }
 
-        function = BinaryDecisionDiagram.Node.format(function);
+        return valid;
+    }
+
+    // the family of the satisfying assignments must convert back to the same function,
+    // and the set operations must match the Boolean ones of the characteristic functions
+    public static boolean testZeroSuppressed() {
+        var order = "ABCDEF";
+        var functions = new String[] { "AB!C + !ADE + CF + B!EF", "A!BD + !CE!F + BCDF + !D", "!A!B + CDE + A!F + BE!D" };
+        var valid = true;
+
+        for (var function : functions) {
+            var bdd = BinaryDecisionDiagram.create(function, order);
+            var zdd = ZeroSuppressedDiagram.of(bdd);
+
+            if (!zdd.count().equals(bdd.satCount())) {
+                System.out.printf("ZDD (%s): %d combinations instead of %d\n", function, zdd.count(), bdd.satCount());
+
+                valid = false;
+            }
 
-        var variablesMap = order.chars()
-                .mapToObj(i -> (char) i)
-                .collect(Collectors.toMap(c -> c, c -> values.charAt(order.indexOf(c))));
+            for (long input = 0; input < 1L << order.length(); input++) {
+                if (zdd.use(input) != bdd.use(input)) {
+                    System.out.printf("ZDD (%s): the family is wrong for %d\n", function, input);
 
-        for (var entry : variablesMap.entrySet()) {
-            function = function
-                    .replace(entry.getKey(), entry.getValue())
-                    .replace(Character.toLowerCase(entry.getKey()), entry.getValue() == '1' ? '0' : '1');
+                    valid = false;
+                }
+            }
+
+            valid &= check("ZDD (" + function + ")", zdd.toBinaryDecisionDiagram(), function);
         }
 
-        function = BinaryDecisionDiagram.Node.parseDigits(function);
+        var first = BinaryDecisionDiagram.create(functions[0], order);
+        var second = BinaryDecisionDiagram.create(functions[2], order);
+        var firstFamily = ZeroSuppressedDiagram.of(first);
+        var secondFamily = ZeroSuppressedDiagram.of(second);
+
+        valid &= check("ZDD (union)", firstFamily.union(secondFamily).toBinaryDecisionDiagram(), functions[0] + " + " + functions[2]);
+        valid &= check("ZDD (intersection)", firstFamily.intersection(secondFamily).toBinaryDecisionDiagram(), first.and(second));
+        valid &= check("ZDD (difference)", firstFamily.difference(secondFamily).toBinaryDecisionDiagram(), first.and(second.not()));
+
+        // {AB, C, the empty combination} over ABC
+        var family = ZeroSuppressedDiagram.of(List.of("A", "B", "C"), List.of(List.of("A", "B"), List.of("C"), List.of()));
+
+        if (!family.count().equals(BigInteger.valueOf(3)) || !family.contains(List.of("B", "A")) || family.contains(List.of("A"))) {
+            System.out.println("ZDD: the family of AB, C and the empty combination is wrong");
+
+            valid = false;
+        }
+
+        valid &= check("ZDD (family)", family.toBinaryDecisionDiagram(), "AB!C + !A!BC + !A!B!C");
+
+        return valid;
+    }
+
+    public static String generateDnfExpression(int variableCount) {
+        return generateDnfExpression(variableCount, new WorkloadGenerator(new Random().nextLong()));
+    }
+
+    // uniformly distributed clause counts and clause lengths, 15% of the literals being negated
+    public static String generateDnfExpression(int variableCount, WorkloadGenerator generator) {
+        return generator.generateDnf(variableCount, MIN_CLAUSES, MAX_CLAUSES,
+                WorkloadGenerator.ClauseLength.uniform(1, variableCount), NEGATION_RATE);
+    }
+
+    // a reproducible expression for benchmarks (the same seed always yields the same expression)
+    public static String generateDnfExpression(int variableCount, int clausesCount, long seed) {
+        return new WorkloadGenerator(seed).generateDnf(variableCount, clausesCount,
+                WorkloadGenerator.ClauseLength.uniform(1, variableCount), NEGATION_RATE);
+    }
+
+    private static boolean check(String name, BinaryDecisionDiagram bdd, String function) {
+        if (!Verifier.verify(bdd, function)) {
+            System.out.printf("%s: the diagram does not match %s\n", name, function);
+
+            return false;
+        }
+
+        return true;
+    }
+
+    private static boolean check(String name, BinaryDecisionDiagram bdd, BinaryDecisionDiagram expected) {
+        if (!bdd.isEquivalent(expected)) {
+            System.out.printf("%s: the diagram does not match %s\n", name, expected.getFunction());
+
+            return false;
+        }
 
-        return function.equals("1");
+        return true;
     }
 
-    public record TestEntry(double reduction, long creationTime, long memoryUsage) {}
+    public record TestEntry(double reduction, long creationTime, long memoryUsage, long tableBytesPerNode, long linkedBytesPerNode) {}
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+// checks a diagram against its DNF 64 assignments at a time: bit j of every word belongs to the j-th assignment of a block
+public class Verifier {
+    // the exhaustive check runs through 2^n assignments, so it is limited to what a long counter can enumerate
+    public static final int MAX_EXHAUSTIVE_VARIABLES = 40;
+
+    // the values of six variables over the 64 assignments of a block
+    private static final long[] PATTERNS = {
+            0xAAAAAAAAAAAAAAAAL,
+            0xCCCCCCCCCCCCCCCCL,
+            0xF0F0F0F0F0F0F0F0L,
+            0xFF00FF00FF00FF00L,
+            0xFFFF0000FFFF0000L,
+            0xFFFFFFFF00000000L
+    };
+
+    public static boolean verify(BinaryDecisionDiagram bdd, String function) {
+        return countMismatches(bdd, function, assignment -> {}) == 0;
+    }
+
+    // runs through all the assignments, where bit i of an assignment holds the value of the i-th variable of the order
+    public static long countMismatches(BinaryDecisionDiagram bdd, String function, LongConsumer onMismatch) {
+        var variableCount = bdd.getOrder().length();
+
+        if (variableCount > MAX_EXHAUSTIVE_VARIABLES) {
+            throw new IllegalArgumentException("Exhaustive verification is limited to " + MAX_EXHAUSTIVE_VARIABLES + " variables!");
+        }
+
+        var cubes = compile(function, bdd.getOrder());
+
+        // the last (up to) six variables of the order vary within a block, while the others are constant for the whole block
+        var blockBits = Math.min(variableCount, 6);
+        var shift = variableCount - blockBits;
+        var blockMask = (1L << blockBits) - 1;
+        var fixedMask = (1L << shift) - 1;
+        var cubeBlockWords = new long[cubes.length / 2];
+
+        for (int i = 0; i < cubeBlockWords.length; i++) {
+            cubeBlockWords[i] = literals(cubes[2 * i] >>> shift & blockMask, cubes[2 * i + 1] >>> shift & blockMask, PATTERNS);
+        }
+
+        var valid = blockBits == 6 ? -1L : (1L << (1 << blockBits)) - 1;
+        var blocks = 1L << shift;
+
+        var table = bdd.getTable();
+        var mismatches = 0L;
+
+        // the nodes testing the varying variables only depend on the position within a block, so their words are computed once
+        var values = new long[table.count()];
+
+        values[NodeTable.TRUE] = -1L;
+
+        for (int node = 2; node < values.length; node++) {
+            if (table.level(node) >= shift) {
+                var variable = PATTERNS[table.level(node) - shift];
+
+                values[node] = variable & values[table.high(node)] | ~variable & values[table.low(node)];
+            }
+        }
+
+        for (long fixed = 0; fixed < blocks; fixed++) {
+            var node = bdd.getRootId();
+
+            // the constant variables select a single path down to the varying ones
+            while (!NodeTable.isLeaf(node) && table.level(node) < shift) {
+                node = (fixed >>> table.level(node) & 1) == 0 ? table.low(node) : table.high(node);
+            }
+
+            var expected = 0L;
+
+            for (int i = 0; i < cubeBlockWords.length; i++) {
+                if ((fixed & cubes[2 * i]) == (cubes[2 * i] & fixedMask) && (fixed & cubes[2 * i + 1]) == 0) {
+                    expected |= cubeBlockWords[i];
+                }
+            }
+
+            var difference = (values[node] ^ expected) & valid;
+
+            if (difference != 0) {
+                mismatches += Long.bitCount(difference);
+
+                for (var bits = difference; bits != 0; bits &= bits - 1) {
+                    onMismatch.accept(fixed | (long) Long.numberOfTrailingZeros(bits) << shift);
+                }
+            }
+        }
+
+        return mismatches;
+    }
+
+    // checks enough random assignments to claim with the given confidence that the share of
+    // mismatching assignments is below the given error rate (1 - confidence = (1 - errorRate)^samples)
+    public static boolean verifySampled(BinaryDecisionDiagram bdd, String function, double confidence, double errorRate, long seed) {
+        if (confidence <= 0 || confidence >= 1 || errorRate <= 0 || errorRate >= 1) {
+            throw new IllegalArgumentException("Both the confidence and the error rate must be between 0 and 1!");
+        }
+
+        var samples = (long) Math.ceil(Math.log(1 - confidence) / Math.log(1 - errorRate));
+
+        return sample(bdd, function, (samples + Long.SIZE - 1) / Long.SIZE, seed) == 0;
+    }
+
+    // evaluates the given number of blocks of 64 random assignments and returns the number of mismatches
+    public static long sample(BinaryDecisionDiagram bdd, String function, long blocks, long seed) {
+        var variableCount = bdd.getOrder().length();
+        var cubes = compile(function, bdd.getOrder());
+        var random = new Random(seed);
+
+        var variables = new long[variableCount];
+        var values = new long[bdd.getTable().count()];
+        var mismatches = 0L;
+
+        for (long block = 0; block < blocks; block++) {
+            for (int level = 0; level < variableCount; level++) {
+                variables[level] = random.nextLong();
+            }
+
+            var expected = 0L;
+
+            for (int i = 0; i < cubes.length; i += 2) {
+                expected |= literals(cubes[i], cubes[i + 1], variables);
+            }
+
+            mismatches += Long.bitCount(evaluate(bdd, variables, values) ^ expected);
+        }
+
+        return mismatches;
+    }
+
+    // the assignments of a block satisfying a cube
+    private static long literals(long positive, long negative, long[] variables) {
+        var result = -1L;
+
+        for (var bits = positive; bits != 0; bits &= bits - 1) {
+            result &= variables[Long.numberOfTrailingZeros(bits)];
+        }
+
+        for (var bits = negative; bits != 0; bits &= bits - 1) {
+            result &= ~variables[Long.numberOfTrailingZeros(bits)];
+        }
+
+        return result;
+    }
+
+    // evaluates every node for the whole block bottom-up (the table is compact, so children come before their parents)
+    private static long evaluate(BinaryDecisionDiagram bdd, long[] variables, long[] values) {
+        var table = bdd.getTable();
+
+        values[NodeTable.FALSE] = 0;
+        values[NodeTable.TRUE] = -1L;
+
+        for (int node = 2; node < values.length; node++) {
+            var variable = variables[table.level(node)];
+
+            values[node] = variable & values[table.high(node)] | ~variable & values[table.low(node)];
+        }
+
+        return values[bdd.getRootId()];
+    }
+
+    // the function may omit the variables that were reduced away, but must not contain any others
+    private static long[] compile(String function, String order) {
+        if (order.length() > Long.SIZE) {
+            throw new IllegalArgumentException("Only up to 64 variables can be verified!");
+        }
+
+        // the constant diagrams report their functions as digits
+        if (function.equals("0")) {
+            return new long[0];
+        }
+
+        if (function.equals("1")) {
+            return new long[2];
+        }
+
+        // the clauses are taken as they are, so the check does not depend on the simplification the diagram is built from
+        // (a contradictory clause is never satisfied, and a duplicate or subsumed one changes nothing)
+        return Cubes.parse(function, order);
+    }
+}
@@ -0,0 +1,252 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+// a reproducible source of test functions: the same seed always yields the same sequence of functions
+public class WorkloadGenerator {
+    public static final int MAX_VARIABLES = Tests.CAPITAL_LETTERS.length();
+
+    private final Random random;
+
+    public WorkloadGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    // a random DNF with a uniformly distributed number of clauses
+    public String generateDnf(int variableCount, int minClauses, int maxClauses, ClauseLength clauseLength, double negationRate) {
+        if (minClauses < 1 || maxClauses < minClauses) {
+            throw new IllegalArgumentException("The clause count range is not valid!");
+        }
+
+        return generateDnf(variableCount, minClauses + random.nextInt(maxClauses - minClauses + 1), clauseLength, negationRate);
+    }
+
+    // a random DNF over the given number of variables, each of which is guaranteed to occur
+    public String generateDnf(int variableCount, int clausesCount, ClauseLength clauseLength, double negationRate) {
+        if (variableCount < 1 || variableCount > MAX_VARIABLES) {
+            throw new IllegalArgumentException("The variable count must be between 1 and " + MAX_VARIABLES + "!");
+        }
+
+        if (clausesCount < 1) {
+            throw new IllegalArgumentException("At least one clause must be generated!");
+        }
+
+        if (negationRate < 0 || negationRate > 1) {
+            throw new IllegalArgumentException("The negation rate must be between 0 and 1!");
+        }
+
+        var letters = new ArrayList<>(Tests.CAPITAL_LETTERS.chars().mapToObj(i -> (char) i).toList());
+
+        Collections.shuffle(letters, random);
+
+        var variables = letters.subList(0, variableCount);
+        var clauses = new ArrayList<ArrayList<Character>>();
+
+        for (int i = 0; i < clausesCount; i++) {
+            var length = Math.max(1, Math.min(variableCount, clauseLength.next(random, variableCount)));
+            var temp = new ArrayList<>(variables);
+
+            Collections.shuffle(temp, random);
+
+            clauses.add(new ArrayList<>(temp.subList(0, length)));
+        }
+
+        // instead of generating the whole expression again, the missing variables are added to random clauses
+        var present = clauses.stream().flatMap(ArrayList::stream).collect(Collectors.toSet());
+
+        for (var variable : variables) {
+            if (!present.contains(variable)) {
+                clauses.get(random.nextInt(clausesCount)).add(variable);
+            }
+        }
+
+        return clauses.stream()
+                .map(c -> c.stream()
+                        .map(v -> (random.nextDouble() < negationRate ? "!" : "") + v)
+                        .collect(Collectors.joining("")))
+                .distinct()
+                .collect(Collectors.joining(" + "));
+    }
+
+    // HWB(x) = x[w], where w is the number of ones in x (and 0 if there are none)
+    // a known worst case, since every variable order yields an exponential diagram
+    public static BinaryDecisionDiagram hiddenWeightedBit(int variableCount) {
+        var order = letters(variableCount);
+        var table = new NodeTable(variableCount);
+        var result = NodeTable.FALSE;
+
+        for (int weight = 1; weight <= variableCount; weight++) {
+            var selected = table.makeNode(weight - 1, NodeTable.FALSE, NodeTable.TRUE);
+
+            result = table.or(result, table.and(exactly(table, weight), selected));
+        }
+
+        return BinaryDecisionDiagram.of(order, table, result);
+    }
+
+    // the given bit of the product of two width-bit numbers a (the first width variables) and b (the rest),
+    // where the variables of both numbers are ordered from the least significant bit
+    // the middle bits are exponential in every variable order
+    public static BinaryDecisionDiagram multiplierBit(int width, int bit) {
+        if (2 * width > MAX_VARIABLES || bit < 0 || bit >= 2 * width) {
+            throw new IllegalArgumentException("The multiplier must fit into " + MAX_VARIABLES + " variables!");
+        }
+
+        var order = letters(2 * width);
+        var table = new NodeTable(2 * width);
+
+        var sum = new int[2 * width];
+
+        Arrays.fill(sum, NodeTable.FALSE);
+
+        // adding the shifted partial products one by one with a ripple-carry adder
+        for (int i = 0; i < width; i++) {
+            var b = table.makeNode(width + i, NodeTable.FALSE, NodeTable.TRUE);
+            var carry = NodeTable.FALSE;
+
+            for (int j = i; j < 2 * width; j++) {
+                var partial = j - i < width
+                        ? table.and(table.makeNode(j - i, NodeTable.FALSE, NodeTable.TRUE), b)
+                        : NodeTable.FALSE;
+
+                var total = table.xor(table.xor(sum[j], partial), carry);
+
+                carry = table.or(table.and(sum[j], partial), table.and(carry, table.xor(sum[j], partial)));
+                sum[j] = total;
+            }
+        }
+
+        return BinaryDecisionDiagram.of(order, table, sum[bit]);
+    }
+
+    // the placements of n non-attacking queens on an n x n board (row by row), so n <= 5
+    public static BinaryDecisionDiagram queens(int n) {
+        if (n < 1 || n * n > MAX_VARIABLES) {
+            throw new IllegalArgumentException("The board must fit into " + MAX_VARIABLES + " variables!");
+        }
+
+        var order = letters(n * n);
+        var table = new NodeTable(n * n);
+        var result = NodeTable.TRUE;
+
+        for (int row = 0; row < n; row++) {
+            var occupied = NodeTable.FALSE;
+
+            for (int column = 0; column < n; column++) {
+                occupied = table.or(occupied, table.makeNode(row * n + column, NodeTable.FALSE, NodeTable.TRUE));
+            }
+
+            result = table.and(result, occupied);
+        }
+
+        for (int square = 0; square < n * n; square++) {
+            var row = square / n;
+            var column = square % n;
+
+            for (int other = square + 1; other < n * n; other++) {
+                var otherRow = other / n;
+                var otherColumn = other % n;
+
+                var attacks = row == otherRow
+                        || column == otherColumn
+                        || Math.abs(row - otherRow) == Math.abs(column - otherColumn);
+
+                if (attacks) {
+                    var both = table.and(
+                            table.makeNode(square, NodeTable.FALSE, NodeTable.TRUE),
+                            table.makeNode(other, NodeTable.FALSE, NodeTable.TRUE)
+                    );
+
+                    result = table.and(result, table.not(both));
+                }
+            }
+        }
+
+        return BinaryDecisionDiagram.of(order, table, result);
+    }
+
+    // exactly k of all the variables are set
+    private static int exactly(NodeTable table, int k) {
+        var variableCount = table.getVariableCount();
+
+        // below[c] is the node for the remaining levels when c variables have been set above
+        var below = new int[k + 2];
+
+        for (int c = 0; c <= k + 1; c++) {
+            below[c] = c == k ? NodeTable.TRUE : NodeTable.FALSE;
+        }
+
+        for (int level = variableCount - 1; level >= 0; level--) {
+            var current = new int[k + 2];
+
+            for (int c = 0; c <= k; c++) {
+                current[c] = table.makeNode(level, below[c], below[c + 1]);
+            }
+
+            current[k + 1] = NodeTable.FALSE;
+            below = current;
+        }
+
+        return below[0];
+    }
+
+    private static String letters(int variableCount) {
+        if (variableCount < 1 || variableCount > MAX_VARIABLES) {
+            throw new IllegalArgumentException("The variable count must be between 1 and " + MAX_VARIABLES + "!");
+        }
+
+        return Tests.CAPITAL_LETTERS.substring(0, variableCount);
+    }
+
+    @FunctionalInterface
+    public interface ClauseLength {
+        int next(Random random, int variableCount);
+
+        // both bounds are capped by the variable count, so a range past it yields clauses over all the variables
+        static ClauseLength uniform(int min, int max) {
+            if (min < 1 || min > max) {
+                throw new IllegalArgumentException("The clause length range must satisfy 1 <= min <= max!");
+            }
+
+            if (min > MAX_VARIABLES) {
+                throw new IllegalArgumentException("A clause cannot contain more than " + MAX_VARIABLES + " variables!");
+            }
+
+            return (random, variableCount) -> {
+                var upper = Math.min(max, variableCount);
+                var lower = Math.min(min, upper);
+
+                return lower + random.nextInt(upper - lower + 1);
+            };
+        }
+
+        // short clauses are more frequent, with the given mean length
+        static ClauseLength geometric(double mean) {
+            if (mean < 1) {
+                throw new IllegalArgumentException("The mean clause length must be at least 1!");
+            }
+
+            return (random, variableCount) -> {
+                var length = 1;
+
+                while (length < variableCount && random.nextDouble() < 1 - 1 / mean) {
+                    length++;
+                }
+
+                return length;
+            };
+        }
+
+        static ClauseLength fixed(int length) {
+            if (length < 1) {
+                throw new IllegalArgumentException("A clause must contain at least one variable!");
+            }
+
+            return (random, variableCount) -> length;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package io.ileukocyte.dsa.bdd;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// a zero-suppressed decision diagram of a family of combinations (sets of variables), where a node is dropped
+// when its high child is FALSE, so the variables absent from most combinations cost no nodes
+//
+// evaluating an input tests whether the set of its true variables is one of the combinations,
+// so a variable skipped on the path must be false (unlike in a BDD, where it can take any value)
+public class ZeroSuppressedDiagram {
+    private final String[] variables;
+
+    // the compact zero-suppressed store holding only the reachable nodes
+    private final NodeTable table;
+    private final int rootId;
+
+    private ZeroSuppressedDiagram(String[] variables, NodeTable builder, int root) {
+        this.variables = variables;
+
+        table = builder.compact(root);
+        rootId = NodeTable.isLeaf(root) ? root : table.count() - 1;
+    }
+
+    // the family of the given combinations, each being a collection of variables that are set (e.g., [A, C])
+    public static ZeroSuppressedDiagram of(List<String> variables, Collection<? extends Collection<String>> combinations) {
+        var levels = new HashMap<String, Integer>();
+
+        for (int level = 0; level < variables.size(); level++) {
+            if (levels.put(variables.get(level), level) != null) {
+                throw new IllegalArgumentException("The order contains a duplicate variable: " + variables.get(level) + "!");
+            }
+        }
+
+        var table = new NodeTable(variables.size(), 1 << 10, true);
+        var result = NodeTable.FALSE;
+
+        for (var combination : combinations) {
+            var set = new BitSet(variables.size());
+
+            for (var variable : combination) {
+                var level = levels.get(variable);
+
+                if (level == null) {
+                    throw new IllegalArgumentException("The variable " + variable + " is missing from the order!");
+                }
+
+                set.set(level);
+            }
+
+            // a single combination is a chain of high edges from its deepest variable up
+            var node = NodeTable.TRUE;
+
+            for (var level = set.previousSetBit(variables.size() - 1); level >= 0; level = set.previousSetBit(level - 1)) {
+                node = table.makeNode(level, NodeTable.FALSE, node);
+            }
+
+            result = table.union(result, node);
+        }
+
+        return new ZeroSuppressedDiagram(variables.toArray(String[]::new), table, result);
+    }
+
+    // the combinations of the variables that satisfy the function
+    public static ZeroSuppressedDiagram of(BinaryDecisionDiagram bdd) {
+        var table = new NodeTable(bdd.getVariableCount(), bdd.getTable().count(), true);
+        var root = convert(bdd.getTable(), bdd.getRootId(), 0, table, false, new HashMap<>());
+
+        return new ZeroSuppressedDiagram(bdd.getVariables().toArray(String[]::new), table, root);
+    }
+
+    // the characteristic function of the family
+    public BinaryDecisionDiagram toBinaryDecisionDiagram() {
+        var builder = new NodeTable(variables.length);
+        var root = convert(table, rootId, 0, builder, true, new HashMap<>());
+
+        return BinaryDecisionDiagram.of(List.of(variables), builder, root);
+    }
+
+    public List<String> getVariables() {
+        return List.of(variables);
+    }
+
+    public int getVariableCount() {
+        return variables.length;
+    }
+
+    // the number of nodes, counted like BinaryDecisionDiagram.size()
+    public int size() {
+        return NodeTable.isLeaf(rootId) ? 1 : table.count();
+    }
+
+    public int[] getLevelSizes() {
+        var sizes = new int[variables.length];
+
+        for (int level = 0; level < sizes.length; level++) {
+            sizes[level] = table.levelCount(level);
+        }
+
+        return sizes;
+    }
+
+    public long memoryFootprint() {
+        return table.memoryFootprint();
+    }
+
+    public boolean isEmpty() {
+        return rootId == NodeTable.FALSE;
+    }
+
+    // the number of combinations, which is the number of paths to the TRUE leaf
+    public BigInteger count() {
+        var counts = new BigInteger[table.count()];
+
+        counts[NodeTable.FALSE] = BigInteger.ZERO;
+        counts[NodeTable.TRUE] = BigInteger.ONE;
+
+        for (int id = 2; id < counts.length; id++) {
+            counts[id] = counts[table.low(id)].add(counts[table.high(id)]);
+        }
+
+        return counts[rootId];
+    }
+
+    public ZeroSuppressedDiagram union(ZeroSuppressedDiagram other) {
+        return apply(other, NodeTable::union);
+    }
+
+    public ZeroSuppressedDiagram intersection(ZeroSuppressedDiagram other) {
+        return apply(other, NodeTable::intersection);
+    }
+
+    public ZeroSuppressedDiagram difference(ZeroSuppressedDiagram other) {
+        return apply(other, NodeTable::difference);
+    }
+
+    // true if exactly the given variables form one of the combinations
+    public boolean contains(Collection<String> combination) {
+        var input = new BitSet(variables.length);
+
+        for (var variable : combination) {
+            input.set(levelOf(variable));
+        }
+
+        return use(input);
+    }
+
+    public boolean use(String input) {
+        if (input.length() != variables.length || !input.matches("[01]*")) {
+            throw new IllegalArgumentException("The input does not match the required format!");
+        }
+
+        var values = new BitSet(variables.length);
+
+        for (int level = 0; level < variables.length; level++) {
+            values.set(level, input.charAt(level) == '1');
+        }
+
+        return use(values);
+    }
+
+    // bit i of the input holds the value of the i-th variable of the order
+    public boolean use(long input) {
+        if (variables.length > Long.SIZE) {
+            throw new IllegalStateException("A long input can only hold up to 64 variables!");
+        }
+
+        var node = rootId;
+        var position = 0;
+
+        while (!NodeTable.isLeaf(node)) {
+            var level = table.level(node);
+
+            // the skipped variables must be false
+            if ((input & bits(position, level)) != 0) {
+                return false;
+            }
+
+            node = (input >>> level & 1) == 0 ? table.low(node) : table.high(node);
+            position = level + 1;
+        }
+
+        return node == NodeTable.TRUE && (input & bits(position, variables.length)) == 0;
+    }
+
+    // bit i of the input holds the value of the i-th variable of the order
+    public boolean use(BitSet input) {
+        var node = rootId;
+        var position = 0;
+
+        while (!NodeTable.isLeaf(node)) {
+            var level = table.level(node);
+            var next = input.nextSetBit(position);
+
+            // the skipped variables must be false
+            if (next != -1 && next < level) {
+                return false;
+            }
+
+            node = input.get(level) ? table.high(node) : table.low(node);
+            position = level + 1;
+        }
+
+        var next = input.nextSetBit(position);
+
+        return node == NodeTable.TRUE && (next == -1 || next >= variables.length);
+    }
+
+    // the value of every variable by its name
+    public boolean use(Map<String, Boolean> input) {
+        var values = new BitSet(variables.length);
+
+        for (int level = 0; level < variables.length; level++) {
+            var value = input.get(variables[level]);
+
+            if (value == null) {
+                throw new IllegalArgumentException("The input is missing the variable " + variables[level] + "!");
+            }
+
+            values.set(level, value);
+        }
+
+        return use(values);
+    }
+
+    private ZeroSuppressedDiagram apply(ZeroSuppressedDiagram other, Operator operator) {
+        if (!Arrays.equals(variables, other.variables)) {
+            throw new IllegalArgumentException("The diagrams must have the same order!");
+        }
+
+        // both operands are copied into a common unique table, so their shared subgraphs are only visited once
+        var table = new NodeTable(variables.length, this.table.count() + other.table.count(), true);
+
+        var f = table.importNode(this.table, rootId);
+        var g = table.importNode(other.table, other.rootId);
+
+        return new ZeroSuppressedDiagram(variables, table, operator.apply(table, f, g));
+    }
+
+    private int levelOf(String variable) {
+        for (int level = 0; level < variables.length; level++) {
+            if (variables[level].equals(variable)) {
+                return level;
+            }
+        }
+
+        throw new IllegalArgumentException("The variable " + variable + " is missing from the order!");
+    }
+
+    // the bits [from, to)
+    private static long bits(int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+
+        return (to == Long.SIZE ? -1L : (1L << to) - 1) & -(1L << from);
+    }
+
+    // rebuilds the diagram level by level in the other kind of table, whose reduction rule removes what it can:
+    // a variable skipped by a BDD can take either value, while a variable skipped by a ZDD must be false
+    private static int convert(NodeStore source, int node, int level, NodeTable target, boolean fromZdd, Map<Long, Integer> memo) {
+        if (level == source.getVariableCount() || node == NodeTable.FALSE) {
+            return node;
+        }
+
+        var key = (long) node * (source.getVariableCount() + 1) + level;
+        var cached = memo.get(key);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        int result;
+
+        if (source.level(node) > level) {
+            var below = convert(source, node, level + 1, target, fromZdd, memo);
+
+            result = target.makeNode(level, below, fromZdd ? NodeTable.FALSE : below);
+        } else {
+            var low = convert(source, source.low(node), level + 1, target, fromZdd, memo);
+            var high = convert(source, source.high(node), level + 1, target, fromZdd, memo);
+
+            result = target.makeNode(level, low, high);
+        }
+
+        memo.put(key, result);
+
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface Operator {
+        int apply(NodeTable table, int f, int g);
+    }
+}